@@ -1,139 +1,551 @@
 package ejm.adminclient;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.google.gson.Gson;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
 
-import org.apache.http.client.fluent.Request;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-
-
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
 
 /**
+ * Client for the admin service, safe to share between threads.
+ *
+ * Requests go through a pool of kept-alive connections sized by {@link AdminClientConfig}. Categories are
+ * read and written with readers and writers built once, as JSON, CBOR or Smile, see
+ * {@link AdminClientConfig#setMediaType(String)}. The {@code *Async} methods run the blocking call on the
+ * configured executor. {@link #getCategory(Integer)} can be served from an
+ * optional cache, see {@link AdminClientConfig#setCacheSize(int)}; cached categories are shared between
+ * callers and must not be modified. Reads by id can be hedged, see {@link AdminClientConfig#setHedging(boolean)}.
+ * Closing the client closes its connections, and its executor if it created one.
+ *
  * @author Ken Finnigan
  */
-public class AdminClient {
-    private String url;
+public class AdminClient implements Closeable {
+
+    /**
+     * Marks a hedged request's backup slot once the first request is done with it.
+     */
+    private static final HttpGet ANSWERED = new HttpGet();
+
+    private final String url;
+
+    private final Codec codec;
+
+    private final CloseableHttpClient http;
+
+    private final ExecutorService executor;
+
+    private final CategoryCache cache;
+
+    private final HedgePolicy hedging;
+
+    private final ScheduledExecutorService timer;
+
+    private final ExecutorService hedges;
+
+    private final long hedgeTimeoutMillis;
+
+    private final boolean ownsExecutor;
 
     public AdminClient(String url) {
+        this(url, new AdminClientConfig());
+    }
+
+    public AdminClient(String url, AdminClientConfig config) {
         this.url = url;
+        this.codec = Codec.forMediaType(config.getMediaType());
+
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(config.getMaxConnections());
+        connections.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        connections.setValidateAfterInactivity(config.getValidateAfterInactivity());
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connections)
+                .setDefaultHeaders(Collections.singletonList(new BasicHeader(HttpHeaders.ACCEPT, codec.contentType.getMimeType())))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                                                 .setConnectTimeout(config.getConnectTimeout())
+                                                 .setSocketTimeout(config.getReadTimeout())
+                                                 .setConnectionRequestTimeout(config.getPoolTimeout())
+                                                 .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : config.getKeepAlive();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(config.getKeepAlive(), TimeUnit.MILLISECONDS);
+        if (!config.isCompression()) {
+            // Otherwise Accept-Encoding is sent, and compressed bodies are inflated as they're read.
+            builder.disableContentCompression();
+        }
+        http = builder.build();
+
+        if (config.getExecutor() != null) {
+            executor = config.getExecutor();
+            ownsExecutor = false;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(config.getMaxConnectionsPerRoute(), runnable -> {
+                Thread thread = new Thread(runnable, "admin-client-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            ownsExecutor = true;
+        }
+
+        cache = config.getCacheSize() > 0 ? new CategoryCache(config.getCacheSize(), config.getCacheTtl()) : null;
+        if (config.isHedging()) {
+            hedging = new HedgePolicy(config);
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "admin-client-hedge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Separate from the executor, whose threads may all be blocked waiting on a hedge. The hedge
+            // budget caps how many run at once.
+            AtomicInteger count = new AtomicInteger();
+            hedges = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "admin-client-hedge-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            hedgeTimeoutMillis = (long) config.getPoolTimeout() + config.getConnectTimeout() + config.getReadTimeout();
+        } else {
+            hedging = null;
+            timer = null;
+            hedges = null;
+            hedgeTimeoutMillis = 0;
+        }
     }
 
     public Category getCategory(final Integer categoryId) throws IOException {
-        URIBuilder uriBuilder;
-        try {
-            uriBuilder = new URIBuilder(url).setPath("/admin/category/" + categoryId);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+        if (cache == null) {
+            return hedged("getCategory", () -> new HttpGet(uri("/admin/category/" + categoryId)), response -> read(response, codec.categoryReader));
         }
 
-        String jsonResponse =
-                Request
-                    .Get(uriBuilder.toString())
-                    .execute()
-                        .returnContent().asString();
+        CategoryCache.Entry entry = cache.get(categoryId);
+        if (entry != null && cache.serve(entry)) {
+            return entry.category;
+        }
+        if (entry == null) {
+            return hedged("getCategory", () -> new HttpGet(uri("/admin/category/" + categoryId)), response -> cached(categoryId, response));
+        }
 
-        if (jsonResponse.isEmpty()) {
-            return null;
+        // Revalidation is usually a cheap 304, so it isn't hedged.
+        HttpGet get = new HttpGet(uri("/admin/category/" + categoryId));
+        get.setHeader(HttpHeaders.IF_NONE_MATCH, entry.tag);
+        try (CloseableHttpResponse response = http.execute(get)) {
+            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                cache.revalidated(entry);
+                return entry.category;
+            }
+            return cached(categoryId, response);
         }
+    }
+
+    /**
+     * Reads every listed category in one request. Categories that don't exist are left out, the rest
+     * come back in id order. The admin service accepts up to 1000 ids at once.
+     */
+    public Category[] getCategories(final Collection<Integer> categoryIds) throws IOException {
+        if (categoryIds.isEmpty()) {
+            return new Category[0];
+        }
+        String ids = categoryIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return hedged("getCategories", () -> new HttpGet(uri("/admin/category", "ids", ids)), response -> read(response, codec.categoriesReader));
+    }
 
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .readValue(jsonResponse, Category.class);
+    public Category[] allCategories() throws IOException {
+        return execute(new HttpGet(uri("/admin/category/")), codec.categoriesReader);
+    }
+
+    /**
+     * Passes every category to {@code consumer} as it is read, without holding the catalog in memory.
+     * Parents are id-only, see {@link CategoryIterator}.
+     */
+    public void allCategories(final Consumer<? super Category> consumer) throws IOException {
+        try (CategoryIterator categories = iterateCategories()) {
+            try {
+                categories.forEachRemaining(consumer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
     }
 
-    public Category[] allCategories() throws IOException{
-        URIBuilder uriBuilder;
+    /**
+     * @return an iterator over every category, read from the response as it is consumed. It must be
+     * closed if it isn't read to the end.
+     */
+    public CategoryIterator iterateCategories() throws IOException {
+        HttpGet get = new HttpGet(uri("/admin/category", "stream", "true"));
+        get.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        CloseableHttpResponse response = http.execute(get);
         try {
-            uriBuilder = new URIBuilder(url).setPath("/admin/category/");
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+            checkStatus(response);
+            InputStream content = response.getEntity() == null
+                    ? new ByteArrayInputStream(new byte[0])
+                    : response.getEntity().getContent();
+            return new CategoryIterator(response, Codec.JSON.categoryReader.getFactory().createParser(content),
+                                        Codec.JSON.categoryReader);
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e;
         }
+    }
 
-        String jsonResponse =
-                Request
-                    .Get(uriBuilder.toString())
-                    .execute()
-                        .returnContent().asString();
+    /**
+     * @return every category, read from the response as the stream is consumed. Closing the stream
+     * closes the response.
+     */
+    public Stream<Category> streamCategories() throws IOException {
+        CategoryIterator categories = iterateCategories();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(categories, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        categories.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
 
-        if (jsonResponse.isEmpty()) {
-            return null;
+    public Category addCategory(final Category category) throws IOException {
+        return execute(withBody(new HttpPost(uri("/admin/category/")), category), codec.categoryReader);
+    }
+
+    public Category updateCategory(final Integer categoryId, final Category category) throws IOException {
+        evict(categoryId);
+        return execute(withBody(new HttpPut(uri("/admin/category/" + categoryId)), category), codec.categoryReader);
+    }
+
+    public void deleteCategory(final Integer categoryId) throws IOException {
+        evict(categoryId);
+        execute(new HttpDelete(uri("/admin/category/" + categoryId)), null);
+    }
+
+    /**
+     * @return the category cache counters, or {@code null} if the cache isn't enabled.
+     */
+    public CacheStatistics cacheStatistics() {
+        return cache == null ? null : cache.statistics();
+    }
+
+    /**
+     * Drops every cached category, so the next read of each goes to the server.
+     */
+    public void clearCache() {
+        if (cache != null) {
+            cache.clear();
         }
+    }
 
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .readValue(jsonResponse, Category[].class);
+    public CompletableFuture<Category> getCategoryAsync(final Integer categoryId) {
+        return async(() -> getCategory(categoryId));
     }
 
-    public Category addCategory(final Category category) throws IOException {
-        URIBuilder uriBuilder;
-        try {
-            uriBuilder = new URIBuilder(url).setPath("/admin/category/");
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+    public CompletableFuture<Category[]> getCategoriesAsync(final Collection<Integer> categoryIds) {
+        return async(() -> getCategories(categoryIds));
+    }
+
+    public CompletableFuture<Category[]> allCategoriesAsync() {
+        return async(this::allCategories);
+    }
+
+    public CompletableFuture<Category> addCategoryAsync(final Category category) {
+        return async(() -> addCategory(category));
+    }
+
+    public CompletableFuture<Category> updateCategoryAsync(final Integer categoryId, final Category category) {
+        return async(() -> updateCategory(categoryId, category));
+    }
+
+    public CompletableFuture<Void> deleteCategoryAsync(final Integer categoryId) {
+        return async(() -> {
+            deleteCategory(categoryId);
+            return null;
+        });
+    }
+
+    /**
+     * @return recent latencies of {@code method}, such as {@code getCategory}, or {@code null} if hedging is off.
+     */
+    public LatencyTracker latency(String method) {
+        return hedging == null ? null : hedging.latency(method);
+    }
+
+    /**
+     * @return how many hedge requests have been sent, 0 if hedging is off.
+     */
+    public long hedgesSent() {
+        return hedging == null ? 0 : hedging.hedgesSent();
+    }
+
+    /**
+     * @return how many hedge requests answered before the request they backed up.
+     */
+    public long hedgesWon() {
+        return hedging == null ? 0 : hedging.hedgesWon();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+            hedges.shutdownNow();
         }
+        http.close();
+    }
 
-        Gson gson = new Gson();
-        String categoryAsJson = gson.toJson(category);
+    /**
+     * @return the body read with {@code reader}, or {@code null} when there is no body or no reader.
+     * @throws HttpResponseException for any status of 300 or above
+     */
+    private <T> T execute(HttpUriRequest request, ObjectReader reader) throws IOException {
+        return send(request, response -> read(response, reader));
+    }
 
-        String jsonResponse =
-            Request
-                .Post(uriBuilder.toString())
-                .bodyString(categoryAsJson, ContentType.APPLICATION_JSON)
-                .execute()
-                    .returnContent().asString();
+    private <T> T send(HttpUriRequest request, ResponseReader<T> reader) throws IOException {
+        try (CloseableHttpResponse response = http.execute(request)) {
+            return reader.read(response);
+        }
+    }
 
-        if (jsonResponse.isEmpty()) {
+    private static <T> T read(CloseableHttpResponse response, ObjectReader reader) throws IOException {
+        checkStatus(response);
+        HttpEntity entity = response.getEntity();
+        if (entity == null || reader == null) {
+            EntityUtils.consume(entity);
             return null;
         }
 
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .readValue(jsonResponse, Category.class);
+        // Parsed straight off the connection, an empty body is null rather than an error.
+        try (InputStream content = entity.getContent();
+             JsonParser parser = reader.getFactory().createParser(content)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            return reader.readValue(parser);
+        }
     }
 
-    public Category updateCategory(final Integer categoryId, final Category category) throws IOException {
-        URIBuilder uriBuilder;
+    /**
+     * Reads a category and keeps it in the cache along with its entity tag.
+     */
+    private Category cached(Integer categoryId, CloseableHttpResponse response) throws IOException {
+        checkStatus(response);
+        byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+        Category category = body.length == 0 ? null : codec.categoryReader.readValue(body);
+        Header tag = response.getFirstHeader(HttpHeaders.ETAG);
+        cache.put(categoryId, category, tag == null ? null : tag.getValue(), body.length);
+        return category;
+    }
+
+    /**
+     * Runs an idempotent GET on the calling thread. If it hasn't answered within the hedge delay, and the
+     * hedge budget allows, a second copy is sent from the hedge executor. The first successful answer is
+     * used and the other request is aborted.
+     *
+     * The backup slot takes either the copy, set by the timer before sending it, or {@link #ANSWERED}, set
+     * by the calling thread once the first request is over. Only one of them can get there first, so no
+     * copy is sent after the answer arrived, and every copy sent is either aborted or waited for.
+     */
+    private <T> T hedged(String method, Supplier<HttpGet> request, ResponseReader<T> reader) throws IOException {
+        if (hedging == null) {
+            return send(request.get(), reader);
+        }
+
+        HttpGet primary = request.get();
+        long delay = hedging.delayNanos(method);
+        if (delay < 0) {
+            return timed(method, primary, reader, false);
+        }
+
+        AtomicReference<HttpGet> backup = new AtomicReference<>();
+        CompletableFuture<T> backupResult = new CompletableFuture<>();
+        ScheduledFuture<?> hedge = timer.schedule(() -> {
+            HttpGet copy = request.get();
+            if (!backup.compareAndSet(null, copy)) {
+                return;
+            }
+            if (!hedging.tryHedge()) {
+                backupResult.cancel(false);
+                return;
+            }
+            hedges.execute(() -> {
+                try {
+                    if (backupResult.complete(timed(method, copy, reader, true)) && backup.get() != ANSWERED) {
+                        // Unblocks the calling thread, which then takes this answer.
+                        primary.abort();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    backupResult.completeExceptionally(e);
+                }
+            });
+        }, delay, TimeUnit.NANOSECONDS);
+
         try {
-            uriBuilder = new URIBuilder(url).setPath("/admin/category/" + categoryId);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
+            T value = timed(method, primary, reader, false);
+            hedge.cancel(false);
+            abort(backup.getAndSet(ANSWERED));
+            return value;
+        } catch (IOException e) {
+            hedge.cancel(false);
+            HttpGet copy = backup.getAndSet(ANSWERED);
+            if (copy == null) {
+                throw e;
+            }
+            // Either the backup answered and aborted us, or we failed and the backup is the only hope.
+            try {
+                T value = backupResult.get(hedgeTimeoutMillis, TimeUnit.MILLISECONDS);
+                hedging.hedgeWon();
+                return value;
+            } catch (CancellationException backupNotSent) {
+                throw e;
+            } catch (ExecutionException backupFailed) {
+                e.addSuppressed(backupFailed.getCause());
+                throw e;
+            } catch (TimeoutException backupTimedOut) {
+                copy.abort();
+                throw e;
+            } catch (InterruptedException interrupted) {
+                copy.abort();
+                Thread.currentThread().interrupt();
+                InterruptedIOException thrown = new InterruptedIOException("Interrupted waiting for hedge");
+                thrown.addSuppressed(e);
+                throw thrown;
+            }
         }
+    }
 
-        Gson gson = new Gson();
-        String categoryAsJson = gson.toJson(category);
+    /**
+     * Records how long {@code request} took, failed or not, as the slow tail is what the hedge delay
+     * tracks. A backup aborted because the first request answered is left out, its time is cut short.
+     */
+    private <T> T timed(String method, HttpGet request, ResponseReader<T> reader, boolean backup) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return send(request, reader);
+        } finally {
+            if (!backup || !request.isAborted()) {
+                hedging.latency(method).record(System.nanoTime() - start);
+            }
+        }
+    }
 
-        String jsonResponse =
-                Request
-                        .Put(uriBuilder.toString())
-                        .bodyString(categoryAsJson, ContentType.APPLICATION_JSON)
-                        .execute()
-                        .returnContent().asString();
+    private static void abort(HttpGet request) {
+        if (request != null) {
+            request.abort();
+        }
+    }
 
-        if (jsonResponse.isEmpty()) {
-            return null;
+    private static void checkStatus(CloseableHttpResponse response) throws IOException {
+        StatusLine status = response.getStatusLine();
+        if (status.getStatusCode() >= 300) {
+            EntityUtils.consume(response.getEntity());
+            throw new HttpResponseException(status.getStatusCode(), status.getReasonPhrase());
         }
+    }
 
-        return new ObjectMapper()
-                .registerModule(new JavaTimeModule())
-                .readValue(jsonResponse, Category.class);
+    private void evict(Integer categoryId) {
+        if (cache != null) {
+            cache.remove(categoryId);
+        }
     }
 
-    public void deleteCategory(final Integer categoryId) throws IOException {
-        URIBuilder uriBuilder;
+    private HttpUriRequest withBody(HttpEntityEnclosingRequestBase request, Category category) throws IOException {
+        request.setEntity(new ByteArrayEntity(codec.categoryWriter.writeValueAsBytes(category), codec.contentType));
+        return request;
+    }
+
+    private String uri(String path) {
         try {
-            uriBuilder = new URIBuilder(url).setPath("/admin/category/" + categoryId);
+            return new URIBuilder(url).setPath(path).toString();
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
+    }
 
+    private String uri(String path, String param, String value) {
+        try {
+            return new URIBuilder(url).setPath(path).setParameter(param, value).toString();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> async(IoCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @FunctionalInterface
+    interface IoCall<T> {
+        T call() throws IOException;
+    }
 
-        Request
-                .Delete(uriBuilder.toString())
-                .execute();
+    @FunctionalInterface
+    interface ResponseReader<T> {
+        T read(CloseableHttpResponse response) throws IOException;
     }
 }
@@ -0,0 +1,219 @@
+package ejm.adminclient;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Connection pool, timeout and threading settings for an {@link AdminClient}. Times are in milliseconds.
+ *
+ * @author Ken Finnigan
+ */
+public class AdminClientConfig {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    private int maxConnections = 200;
+
+    private int maxConnectionsPerRoute = 50;
+
+    private int connectTimeout = 1000;
+
+    private int readTimeout = 5000;
+
+    private int poolTimeout = 1000;
+
+    private long keepAlive = 30000;
+
+    private int validateAfterInactivity = 2000;
+
+    private ExecutorService executor;
+
+    private int cacheSize;
+
+    private long cacheTtl = 10000;
+
+    private boolean hedging;
+
+    private long hedgeDelay;
+
+    private double hedgePercentile = 0.95;
+
+    private double maxHedgeRate = 0.05;
+
+    private String mediaType = "application/json";
+
+    private boolean compression = true;
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the longest wait for data on an open connection.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return the longest wait for a pooled connection to become free.
+     */
+    public int getPoolTimeout() {
+        return poolTimeout;
+    }
+
+    public void setPoolTimeout(int poolTimeout) {
+        this.poolTimeout = poolTimeout;
+    }
+
+    /**
+     * @return how long an idle connection is kept when the server doesn't send a {@code Keep-Alive} timeout.
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @return how long a connection can sit idle in the pool before it is checked for staleness on lease.
+     */
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    /**
+     * @return the executor the {@code *Async} methods run on, or {@code null} for one owned by the client.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the most categories {@link AdminClient#getCategory(Integer)} keeps, 0 turns caching off.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @return how long a cached category is used without asking the server; after that it is revalidated.
+     */
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * @return whether idempotent reads, {@link AdminClient#getCategory(Integer)} including cache misses and
+     * {@link AdminClient#getCategories(java.util.Collection)}, send a second request when the first is slow.
+     * Revalidation of a cached category isn't hedged. Second requests run on threads of their own, not the
+     * {@link #getExecutor() executor}, and a failed first request waits for one at most the pool, connect
+     * and read timeouts combined.
+     */
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * @return how long to wait before hedging, or 0 to wait for the {@link #getHedgePercentile()} latency.
+     */
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * @return the percentile of recent latencies, between 0 and 1, used as the hedge delay when none is fixed.
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * @return the largest share of requests, between 0 and 1, that can be hedged over time.
+     */
+    public double getMaxHedgeRate() {
+        return maxHedgeRate;
+    }
+
+    public void setMaxHedgeRate(double maxHedgeRate) {
+        this.maxHedgeRate = maxHedgeRate;
+    }
+
+    /**
+     * @return how categories are encoded on the wire: {@code application/json}, {@link #APPLICATION_CBOR}
+     * or {@link #APPLICATION_SMILE}. Streamed reads of every category are always JSON.
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return whether responses are requested gzip or deflate compressed, and decompressed as they are read.
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+}
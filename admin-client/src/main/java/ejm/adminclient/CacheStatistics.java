@@ -0,0 +1,74 @@
+package ejm.adminclient;
+
+/**
+ * Point in time counters of the {@link AdminClient} category cache.
+ *
+ * @author Ken Finnigan
+ */
+public class CacheStatistics {
+
+    private final long hits;
+
+    private final long revalidations;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final int size;
+
+    private final long cachedBytes;
+
+    public CacheStatistics(long hits, long revalidations, long misses, long evictions, int size, long cachedBytes) {
+        this.hits = hits;
+        this.revalidations = revalidations;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.cachedBytes = cachedBytes;
+    }
+
+    /**
+     * @return reads answered from the cache without a request.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return reads answered by the server with 304, which still skip reading and parsing a body.
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * @return reads that needed a full response.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the JSON size of every cached category, a proxy for the memory the cache holds.
+     */
+    public long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * @return the share of reads answered without a body, from memory or by a 304.
+     */
+    public double getHitRatio() {
+        long total = hits + revalidations + misses;
+        return total == 0 ? 0 : (double) (hits + revalidations) / total;
+    }
+}
@@ -0,0 +1,141 @@
+package ejm.adminclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Reads categories by id through {@link AdminClient#getCategories(java.util.Collection)}, so many
+ * concurrent lookups cost one request.
+ *
+ * The first id asked for opens a window; every id asked for until it closes, or until the batch is
+ * full, goes out in the same request. An id that is already on its way to the server isn't asked for
+ * again, callers wait on the request in flight.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryBatchLoader implements Closeable {
+
+    /**
+     * The most ids the admin service takes in one request.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final AdminClient client;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService timer;
+
+    private final Map<Integer, CompletableFuture<Category>> inFlight = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private List<Integer> pending = new ArrayList<>();
+
+    public CategoryBatchLoader(AdminClient client) {
+        this(client, 2, 100);
+    }
+
+    public CategoryBatchLoader(AdminClient client, long windowMillis, int maxBatchSize) {
+        this.client = client;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_SIZE));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-client-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the category, or {@code null} if it doesn't exist.
+     */
+    public Category getCategory(Integer categoryId) throws IOException {
+        try {
+            return getCategoryAsync(categoryId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Category> getCategoryAsync(Integer categoryId) {
+        CompletableFuture<Category> created = new CompletableFuture<>();
+        CompletableFuture<Category> existing = inFlight.putIfAbsent(categoryId, created);
+        if (existing != null) {
+            // A copy, so one caller cancelling doesn't cancel the others.
+            return existing.thenApply(Function.identity());
+        }
+
+        List<Integer> full = null;
+        boolean opened;
+        synchronized (lock) {
+            pending.add(categoryId);
+            opened = pending.size() == 1;
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        } else if (opened) {
+            timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return created.thenApply(Function.identity());
+    }
+
+    @Override
+    public void close() {
+        flush();
+        timer.shutdown();
+    }
+
+    private void flush() {
+        List<Integer> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        send(batch);
+    }
+
+    private void send(List<Integer> batch) {
+        client.getCategoriesAsync(batch).whenComplete((categories, error) -> {
+            Map<Integer, Category> byId = new HashMap<>();
+            if (categories != null) {
+                for (Category category : categories) {
+                    byId.put(category.getId(), category);
+                }
+            }
+            for (Integer id : batch) {
+                CompletableFuture<Category> future = inFlight.remove(id);
+                if (error != null) {
+                    future.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                } else {
+                    future.complete(byId.get(id));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package ejm.adminclient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of categories read by {@link AdminClient#getCategory(Integer)}, keyed by id.
+ *
+ * An entry is served as is until its time to live runs out. After that it is kept, along with the entity
+ * tag it was read with, so the next read can be a conditional request the server answers with 304.
+ *
+ * @author Ken Finnigan
+ */
+class CategoryCache {
+
+    static final class Entry {
+
+        final Category category;
+
+        final String tag;
+
+        final int bytes;
+
+        volatile long freshUntil;
+
+        Entry(Category category, String tag, int bytes, long freshUntil) {
+            this.category = category;
+            this.tag = tag;
+            this.bytes = bytes;
+            this.freshUntil = freshUntil;
+        }
+    }
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    // Guarded by this
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    // Guarded by this
+    private long cachedBytes;
+
+    // Guarded by this
+    private long hits;
+
+    // Guarded by this
+    private long revalidations;
+
+    // Guarded by this
+    private long misses;
+
+    // Guarded by this
+    private long evictions;
+
+    CategoryCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > CategoryCache.this.maxEntries) {
+                    cachedBytes -= eldest.getValue().bytes;
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the entry for {@code categoryId}, fresh or not.
+     */
+    synchronized Entry get(Integer categoryId) {
+        return entries.get(categoryId);
+    }
+
+    /**
+     * @return whether {@code entry} can be used without asking the server, counting a hit if so.
+     */
+    synchronized boolean serve(Entry entry) {
+        if (entry.freshUntil > System.currentTimeMillis()) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a full response, replacing any entry. A category that doesn't exist, or one without a tag
+     * to revalidate against, isn't kept.
+     */
+    synchronized void put(Integer categoryId, Category category, String tag, int bytes) {
+        misses++;
+        if (category == null || tag == null) {
+            remove(categoryId);
+            return;
+        }
+        Entry previous = entries.put(categoryId, new Entry(category, tag, bytes, System.currentTimeMillis() + ttlMillis));
+        cachedBytes += bytes - (previous == null ? 0 : previous.bytes);
+    }
+
+    /**
+     * Records a 304 for {@code entry}, which stays cached for another time to live.
+     */
+    synchronized void revalidated(Entry entry) {
+        revalidations++;
+        entry.freshUntil = System.currentTimeMillis() + ttlMillis;
+    }
+
+    synchronized void remove(Integer categoryId) {
+        Entry removed = entries.remove(categoryId);
+        if (removed != null) {
+            cachedBytes -= removed.bytes;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    synchronized CacheStatistics statistics() {
+        return new CacheStatistics(hits, revalidations, misses, evictions, entries.size(), cachedBytes);
+    }
+}
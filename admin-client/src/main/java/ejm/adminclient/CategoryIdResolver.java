@@ -0,0 +1,41 @@
+package ejm.adminclient;
+
+import java.util.HashMap;
+
+import com.fasterxml.jackson.annotation.ObjectIdGenerator;
+import com.fasterxml.jackson.annotation.ObjectIdResolver;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+
+/**
+ * The admin service writes a category's parent as its id. This resolves such an id to a
+ * {@link Category} carrying just that id when the parent itself isn't part of the response.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryIdResolver extends SimpleObjectIdResolver {
+
+    @Override
+    public void bindItem(ObjectIdGenerator.IdKey id, Object pojo) {
+        // A parent may be referenced before it appears in full, keep the full one.
+        if (_items == null) {
+            _items = new HashMap<>();
+        }
+        _items.put(id, pojo);
+    }
+
+    @Override
+    public Object resolveId(ObjectIdGenerator.IdKey id) {
+        Object item = super.resolveId(id);
+        if (item == null && id.key instanceof Number) {
+            Category reference = new Category();
+            reference.id = ((Number) id.key).intValue();
+            return reference;
+        }
+        return item;
+    }
+
+    @Override
+    public ObjectIdResolver newForDeserialization(Object context) {
+        return new CategoryIdResolver();
+    }
+}
@@ -0,0 +1,102 @@
+package ejm.adminclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+/**
+ * Reads the categories of a JSON array one at a time, straight from an open response.
+ *
+ * Each category is read on its own, so nothing read earlier is held on to. As a result a parent is
+ * only its id, as {@link CategoryIdResolver} leaves it. The response is closed once the array has
+ * been read; closing the iterator early closes it too, dropping the connection.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryIterator implements Iterator<Category>, Closeable {
+
+    private final CloseableHttpResponse response;
+
+    private final JsonParser parser;
+
+    private final ObjectReader reader;
+
+    private JsonToken next;
+
+    private boolean closed;
+
+    CategoryIterator(CloseableHttpResponse response, JsonParser parser, ObjectReader reader) throws IOException {
+        this.response = response;
+        this.parser = parser;
+        this.reader = reader;
+
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            close();
+        } else if (first != JsonToken.START_ARRAY) {
+            close();
+            throw new IOException("Expected an array of categories but found " + first);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (next == null) {
+            try {
+                next = parser.nextToken();
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            }
+            if (next == null || next == JsonToken.END_ARRAY) {
+                closeQuietly();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Category next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        next = null;
+        try {
+            return reader.readValue(parser);
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                parser.close();
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Nothing more to read either way
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ejm.adminclient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Readers and writer for categories in one of the encodings the admin service speaks, built once.
+ *
+ * @author Ken Finnigan
+ */
+final class Codec {
+
+    static final Codec JSON = new Codec(new JsonFactory(), ContentType.APPLICATION_JSON);
+
+    static final Codec CBOR = new Codec(new CBORFactory(), ContentType.create(AdminClientConfig.APPLICATION_CBOR));
+
+    static final Codec SMILE = new Codec(new SmileFactory(), ContentType.create(AdminClientConfig.APPLICATION_SMILE));
+
+    final ContentType contentType;
+
+    final ObjectReader categoryReader;
+
+    final ObjectReader categoriesReader;
+
+    final ObjectWriter categoryWriter;
+
+    private Codec(JsonFactory factory, ContentType contentType) {
+        ObjectMapper mapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule());
+        this.contentType = contentType;
+        this.categoryReader = mapper.readerFor(Category.class);
+        this.categoriesReader = mapper.readerFor(Category[].class);
+        this.categoryWriter = mapper.writerFor(Category.class);
+    }
+
+    static Codec forMediaType(String mediaType) {
+        if (AdminClientConfig.APPLICATION_CBOR.equals(mediaType)) {
+            return CBOR;
+        }
+        if (AdminClientConfig.APPLICATION_SMILE.equals(mediaType)) {
+            return SMILE;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,94 @@
+package ejm.adminclient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when an {@link AdminClient} GET sends a second, hedge request, and how often it may.
+ *
+ * The delay before hedging is either fixed, or the configured percentile of the method's recent
+ * latencies once enough have been seen. Hedges are paid for from a budget that every request adds
+ * {@code maxHedgeRate} of a hedge to, capped at {@link #BURST} hedges, so over time no more than that
+ * share of requests are hedged however slow the server gets.
+ *
+ * @author Ken Finnigan
+ */
+class HedgePolicy {
+
+    static final int MIN_SAMPLES = 20;
+
+    static final int BURST = 10;
+
+    private static final long HEDGE_COST = 1000;
+
+    private final long fixedDelayNanos;
+
+    private final double percentile;
+
+    private final long earnedPerRequest;
+
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong budget = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong won = new AtomicLong();
+
+    HedgePolicy(AdminClientConfig config) {
+        this.fixedDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getHedgeDelay());
+        this.percentile = config.getHedgePercentile();
+        this.earnedPerRequest = (long) (config.getMaxHedgeRate() * HEDGE_COST);
+    }
+
+    LatencyTracker latency(String method) {
+        return latencies.computeIfAbsent(method, m -> new LatencyTracker());
+    }
+
+    /**
+     * Called once for every request, which also adds its share to the hedge budget.
+     *
+     * @return nanoseconds to wait for the first request before hedging, or -1 to never hedge it.
+     */
+    long delayNanos(String method) {
+        budget.updateAndGet(tokens -> Math.min(tokens + earnedPerRequest, BURST * HEDGE_COST));
+
+        if (fixedDelayNanos > 0) {
+            return fixedDelayNanos;
+        }
+        LatencyTracker tracker = latency(method);
+        if (tracker.count() < MIN_SAMPLES) {
+            return -1;
+        }
+        return tracker.percentile(percentile);
+    }
+
+    /**
+     * @return whether the budget allows a hedge now, taking one from it if so.
+     */
+    boolean tryHedge() {
+        long tokens;
+        do {
+            tokens = budget.get();
+            if (tokens < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(tokens, tokens - HEDGE_COST));
+        sent.incrementAndGet();
+        return true;
+    }
+
+    void hedgeWon() {
+        won.incrementAndGet();
+    }
+
+    long hedgesSent() {
+        return sent.get();
+    }
+
+    long hedgesWon() {
+        return won.get();
+    }
+}
@@ -0,0 +1,64 @@
+package ejm.adminclient;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies of the most recent calls to one {@link AdminClient} method, in a fixed size ring.
+ *
+ * Recording is a single atomic increment and store. Percentiles are read from a sorted copy of the
+ * ring that is refreshed at most every {@link #REFRESH_NANOS}, so asking on every call stays cheap.
+ *
+ * @author Ken Finnigan
+ */
+public class LatencyTracker {
+
+    static final int CAPACITY = 1024;
+
+    static final long REFRESH_NANOS = 100_000_000L;
+
+    private final AtomicLongArray samples = new AtomicLongArray(CAPACITY);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long[] sorted = new long[0];
+
+    private volatile long sortedAt;
+
+    public void record(long nanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % CAPACITY), nanos);
+    }
+
+    /**
+     * @return how many latencies have been recorded in total.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile between 0 and 1, such as 0.95
+     * @return the latency in nanoseconds at {@code percentile} over the recent calls, or -1 if there are none.
+     */
+    public long percentile(double percentile) {
+        long now = System.nanoTime();
+        long[] values = sorted;
+        if (now - sortedAt > REFRESH_NANOS || values.length == 0) {
+            int size = (int) Math.min(count.get(), CAPACITY);
+            values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = samples.get(i);
+            }
+            Arrays.sort(values);
+            sorted = values;
+            sortedAt = now;
+        }
+        if (values.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percentile * values.length) - 1;
+        return values[Math.max(0, Math.min(values.length - 1, rank))];
+    }
+}
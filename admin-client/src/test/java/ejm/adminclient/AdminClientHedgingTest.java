@@ -0,0 +1,177 @@
+package ejm.adminclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.HttpResponseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Runs {@link AdminClient} against a local server whose first answer is held back until the test ends,
+ * or fails after a while.
+ *
+ * @author Ken Finnigan
+ */
+public class AdminClientHedgingTest {
+
+    private static final byte[] BODY = "{\"id\":1001,\"name\":\"Bikes\",\"version\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ExecutorService handlers;
+
+    private HttpServer server;
+
+    private volatile boolean slowFirst = true;
+
+    private volatile long failFirstAfter;
+
+    private volatile long delaySecond;
+
+    @Before
+    public void start() throws Exception {
+        handlers = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/admin/category/", exchange -> {
+            try {
+                int request = requests.incrementAndGet();
+                if (request == 1 && failFirstAfter > 0) {
+                    Thread.sleep(failFirstAfter);
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+                if (request == 1 && slowFirst) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                if (request == 2) {
+                    Thread.sleep(delaySecond);
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("ETag", "\"1001-1\"");
+                exchange.sendResponseHeaders(200, BODY.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(BODY);
+                }
+            } catch (InterruptedException | IOException e) {
+                // The client gave up on this request
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        release.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void slowReadIsAnsweredByTheHedge() throws Exception {
+        try (AdminClient client = new AdminClient(url(), config(500))) {
+            long start = System.nanoTime();
+            Category category = client.getCategory(1001);
+
+            assertThat(category.getName()).isEqualTo("Bikes");
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+            assertThat(requests.get()).isEqualTo(2);
+            assertThat(client.hedgesSent()).isEqualTo(1);
+            assertThat(client.hedgesWon()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void fastReadIsNotHedged() throws Exception {
+        slowFirst = false;
+        try (AdminClient client = new AdminClient(url(), config(5000))) {
+            assertThat(client.getCategory(1001).getName()).isEqualTo("Bikes");
+            assertThat(client.getCategory(1001).getName()).isEqualTo("Bikes");
+
+            assertThat(requests.get()).isEqualTo(2);
+            assertThat(client.hedgesSent()).isEqualTo(0);
+            assertThat(client.latency("getCategory").count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void cacheMissIsHedgedAndCached() throws Exception {
+        AdminClientConfig config = config(500);
+        config.setCacheSize(10);
+        try (AdminClient client = new AdminClient(url(), config)) {
+            assertThat(client.getCategory(1001).getName()).isEqualTo("Bikes");
+            assertThat(client.hedgesWon()).isEqualTo(1);
+
+            // Served from the cache, so the server sees nothing more.
+            assertThat(client.getCategory(1001).getName()).isEqualTo("Bikes");
+            assertThat(requests.get()).isEqualTo(2);
+            assertThat(client.cacheStatistics().getSize()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void hedgeRunsWhenEveryExecutorThreadIsBusy() throws Exception {
+        AdminClientConfig config = config(200);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        config.setExecutor(executor);
+        try (AdminClient client = new AdminClient(url(), config)) {
+            // The only executor thread runs the first request, the hedge can't queue behind it.
+            Category category = client.getCategoryAsync(1001).get(5, TimeUnit.SECONDS);
+
+            assertThat(category.getName()).isEqualTo("Bikes");
+            assertThat(client.hedgesWon()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedReadWaitsForTheHedgeInFlight() throws Exception {
+        failFirstAfter = 600;
+        delaySecond = 900;
+        try (AdminClient client = new AdminClient(url(), config(300))) {
+            assertThat(client.getCategory(1001).getName()).isEqualTo("Bikes");
+
+            assertThat(requests.get()).isEqualTo(2);
+            assertThat(client.hedgesWon()).isEqualTo(1);
+            // The failure is timed too, the slow tail is what the hedge delay follows.
+            assertThat(client.latency("getCategory").count()).isEqualTo(2);
+        }
+    }
+
+    @Test(expected = HttpResponseException.class)
+    public void failedReadWithoutHedgeThrows() throws Exception {
+        failFirstAfter = 50;
+        try (AdminClient client = new AdminClient(url(), config(5000))) {
+            client.getCategory(1001);
+        }
+    }
+
+    private static AdminClientConfig config(long hedgeDelay) {
+        AdminClientConfig config = new AdminClientConfig();
+        config.setHedging(true);
+        config.setHedgeDelay(hedgeDelay);
+        config.setMaxHedgeRate(1);
+        return config;
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,69 @@
+package ejm.adminclient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryBatchLoaderTest {
+
+    @Test
+    public void coalescesAndDeduplicatesLookups() throws Exception {
+        RecordingClient client = new RecordingClient();
+        try (CategoryBatchLoader loader = new CategoryBatchLoader(client, 50, 100)) {
+            CompletableFuture<Category> first = loader.getCategoryAsync(1);
+            CompletableFuture<Category> second = loader.getCategoryAsync(2);
+            CompletableFuture<Category> again = loader.getCategoryAsync(1);
+            CompletableFuture<Category> missing = loader.getCategoryAsync(404);
+
+            assertThat(first.get().getId()).isEqualTo(1);
+            assertThat(second.get().getId()).isEqualTo(2);
+            assertThat(again.get().getId()).isEqualTo(1);
+            assertThat(missing.get()).isNull();
+        }
+
+        assertThat(client.requests).hasSize(1);
+        assertThat(client.requests.get(0)).containsOnly(1, 2, 404);
+    }
+
+    @Test
+    public void sendsFullBatchWithoutWaiting() throws Exception {
+        RecordingClient client = new RecordingClient();
+        try (CategoryBatchLoader loader = new CategoryBatchLoader(client, 60000, 2)) {
+            CompletableFuture<Category> first = loader.getCategoryAsync(1);
+            CompletableFuture<Category> second = loader.getCategoryAsync(2);
+
+            assertThat(first.get().getId()).isEqualTo(1);
+            assertThat(second.get().getId()).isEqualTo(2);
+        }
+
+        assertThat(client.requests).hasSize(1);
+    }
+
+    private static class RecordingClient extends AdminClient {
+
+        final List<List<Integer>> requests = new ArrayList<>();
+
+        RecordingClient() {
+            super("http://localhost:0");
+        }
+
+        @Override
+        public synchronized CompletableFuture<Category[]> getCategoriesAsync(Collection<Integer> categoryIds) {
+            requests.add(new ArrayList<>(categoryIds));
+            Category[] found = categoryIds.stream()
+                    .filter(id -> id < 100)
+                    .map(id -> new TestCategoryObject(id, LocalDateTime.now(), 0))
+                    .toArray(Category[]::new);
+            return CompletableFuture.completedFuture(found);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ejm.adminclient;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        CategoryCache cache = new CategoryCache(2, 60000);
+        cache.put(1, category(1), "\"1-0\"", 100);
+        cache.put(2, category(2), "\"2-0\"", 100);
+
+        assertThat(cache.serve(cache.get(1))).isTrue();
+        cache.put(3, category(3), "\"3-0\"", 50);
+
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isNotNull();
+
+        CacheStatistics statistics = cache.statistics();
+        assertThat(statistics.getSize()).isEqualTo(2);
+        assertThat(statistics.getEvictions()).isEqualTo(1);
+        assertThat(statistics.getCachedBytes()).isEqualTo(150);
+        assertThat(statistics.getHits()).isEqualTo(1);
+        assertThat(statistics.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void staleEntriesAreKeptForRevalidation() throws Exception {
+        CategoryCache cache = new CategoryCache(10, 0);
+        cache.put(1, category(1), "\"1-0\"", 100);
+
+        CategoryCache.Entry entry = cache.get(1);
+        assertThat(cache.serve(entry)).isFalse();
+        assertThat(entry.tag).isEqualTo("\"1-0\"");
+
+        cache.revalidated(entry);
+        assertThat(cache.statistics().getRevalidations()).isEqualTo(1);
+        assertThat(cache.statistics().getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void responsesWithoutTagAreNotKept() throws Exception {
+        CategoryCache cache = new CategoryCache(10, 60000);
+        cache.put(1, category(1), "\"1-0\"", 100);
+        cache.put(1, category(1), null, 100);
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.statistics().getCachedBytes()).isEqualTo(0);
+    }
+
+    private static Category category(Integer id) {
+        return new TestCategoryObject(id, LocalDateTime.now(), 0);
+    }
+}
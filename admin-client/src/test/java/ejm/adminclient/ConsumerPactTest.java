@@ -2,6 +2,9 @@ package ejm.adminclient;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 import au.com.dius.pact.consumer.ConsumerPactTestMk2;
 import au.com.dius.pact.consumer.MockServer;
@@ -10,6 +13,7 @@ import au.com.dius.pact.model.PactSpecVersion;
 import au.com.dius.pact.model.RequestResponsePact;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.fest.assertions.Assertions;
 
@@ -54,19 +58,30 @@ public class ConsumerPactTest extends ConsumerPactTestMk2 {
                 .registerModule(new JavaTimeModule());
 
         try {
+            // The service writes parents as ids
+            ObjectNode toyotasResponse = mapper.valueToTree(toyotas);
+            toyotasResponse.put("parent", cars.getId());
+
             return builder
                     .uponReceiving("Retrieve a category")
                         .path("/admin/category/1015")
                         .method("GET")
                     .willRespondWith()
                         .status(200)
-                        .body(mapper.writeValueAsString(toyotas))
+                        .body(mapper.writeValueAsString(toyotasResponse))
                     .uponReceiving("All categories")
                         .path("/admin/category/")
                         .method("GET")
                     .willRespondWith()
                         .status(200)
                         .body(mapper.writeValueAsString(categories))
+                    .uponReceiving("Stream all categories")
+                        .path("/admin/category")
+                        .query("stream=true")
+                        .method("GET")
+                    .willRespondWith()
+                        .status(200)
+                        .body(mapper.writeValueAsString(categories))
                     .uponReceiving("Create a category")
                         .path("/admin/category/")
                         .method("POST")
@@ -113,7 +128,7 @@ public class ConsumerPactTest extends ConsumerPactTestMk2 {
         AdminClient adminClient = new AdminClient(mockServer.getUrl());
 
         // verifying getCategory:
-        Category cat = new AdminClient(mockServer.getUrl()).getCategory(1015);
+        Category cat = adminClient.getCategory(1015);
         Assertions.assertThat(cat).isNotNull();
         assertThat(cat.getId()).isEqualTo(1015);
         assertThat(cat.getName()).isEqualTo("Toyota Cars");
@@ -134,6 +149,16 @@ public class ConsumerPactTest extends ConsumerPactTestMk2 {
         assertThat(categories[1].getName()).isEqualTo("Transportation");
         assertThat(categories[1].getParent().getId()).isEqualTo(0);
 
+        // verifying streamed categories, where parents are ids only:
+        List<Category> streamed = new ArrayList<>();
+        adminClient.allCategories(streamed::add);
+        assertThat(streamed).hasSize(5);
+        assertThat(streamed.get(4).getName()).isEqualTo("Toyota Cars");
+        assertThat(streamed.get(4).getParent().getId()).isEqualTo(1009);
+        try (Stream<Category> stream = adminClient.streamCategories()) {
+            assertThat(stream.map(Category::getId).toArray()).isEqualTo(new Object[]{0, 1000, 1002, 1009, 1015});
+        }
+
         // verifying addCategory:
         Category bikes = createCategory(1001, "Bikes");
         Category newCat = adminClient.addCategory(bikes);
@@ -163,7 +188,7 @@ public class ConsumerPactTest extends ConsumerPactTestMk2 {
 
         // verifying updateCategory:
         adminClient.deleteCategory(1015);
-        cat = new AdminClient(mockServer.getUrl()).getCategory(1015);
+        cat = adminClient.getCategoryAsync(1015).join();
         Assertions.assertThat(cat).isNotNull();
         assertThat(cat.getId()).isEqualTo(1015);
         assertThat(cat.getName()).isEqualTo("Toyota Cars");
@@ -173,5 +198,6 @@ public class ConsumerPactTest extends ConsumerPactTestMk2 {
         assertThat(cat.getParent()).isNotNull();
         assertThat(cat.getParent().getId()).isEqualTo(1009);
 
+        adminClient.close();
     }
 }
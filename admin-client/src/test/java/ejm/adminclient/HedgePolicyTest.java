@@ -0,0 +1,85 @@
+package ejm.adminclient;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class HedgePolicyTest {
+
+    @Test
+    public void percentileDelayWaitsForEnoughSamples() throws Exception {
+        AdminClientConfig config = new AdminClientConfig();
+        config.setHedgePercentile(0.5);
+        HedgePolicy policy = new HedgePolicy(config);
+
+        for (int i = 1; i < HedgePolicy.MIN_SAMPLES; i++) {
+            policy.latency("getCategory").record(i * 1000);
+        }
+        assertThat(policy.delayNanos("getCategory")).isEqualTo(-1);
+
+        policy.latency("getCategory").record(HedgePolicy.MIN_SAMPLES * 1000);
+        assertThat(policy.delayNanos("getCategory")).isEqualTo(10_000);
+        // Samples are kept per method.
+        assertThat(policy.delayNanos("getCategories")).isEqualTo(-1);
+    }
+
+    @Test
+    public void fixedDelayDoesntNeedSamples() throws Exception {
+        AdminClientConfig config = new AdminClientConfig();
+        config.setHedgeDelay(25);
+        HedgePolicy policy = new HedgePolicy(config);
+
+        assertThat(policy.delayNanos("getCategory")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(25));
+    }
+
+    @Test
+    public void budgetAllowsTheConfiguredShare() throws Exception {
+        AdminClientConfig config = new AdminClientConfig();
+        config.setHedgeDelay(25);
+        config.setMaxHedgeRate(0.1);
+        HedgePolicy policy = new HedgePolicy(config);
+
+        assertThat(policy.tryHedge()).isFalse();
+        for (int i = 1; i < 10; i++) {
+            policy.delayNanos("getCategory");
+        }
+        assertThat(policy.tryHedge()).isFalse();
+
+        policy.delayNanos("getCategory");
+        assertThat(policy.tryHedge()).isTrue();
+        assertThat(policy.tryHedge()).isFalse();
+        assertThat(policy.hedgesSent()).isEqualTo(1);
+    }
+
+    @Test
+    public void budgetIsCappedAtBurst() throws Exception {
+        AdminClientConfig config = new AdminClientConfig();
+        config.setHedgeDelay(25);
+        config.setMaxHedgeRate(1);
+        HedgePolicy policy = new HedgePolicy(config);
+
+        for (int i = 0; i < 1000; i++) {
+            policy.delayNanos("getCategory");
+        }
+        int hedges = 0;
+        while (policy.tryHedge()) {
+            hedges++;
+        }
+        assertThat(hedges).isEqualTo(HedgePolicy.BURST);
+    }
+
+    @Test
+    public void countsHedgesWon() throws Exception {
+        HedgePolicy policy = new HedgePolicy(new AdminClientConfig());
+        policy.hedgeWon();
+        policy.hedgeWon();
+
+        assertThat(policy.hedgesWon()).isEqualTo(2);
+        assertThat(policy.hedgesSent()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,55 @@
+package ejm.adminclient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class LatencyTrackerTest {
+
+    @Test
+    public void emptyHasNoPercentile() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        assertThat(tracker.percentile(0.95)).isEqualTo(-1);
+        assertThat(tracker.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void percentilesAreNearestRank() throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            latencies.add(i);
+        }
+        Collections.shuffle(latencies, new Random(3));
+        LatencyTracker tracker = new LatencyTracker();
+        latencies.forEach(tracker::record);
+
+        assertThat(tracker.count()).isEqualTo(100);
+        assertThat(tracker.percentile(0.5)).isEqualTo(50);
+        assertThat(tracker.percentile(0.95)).isEqualTo(95);
+        assertThat(tracker.percentile(0.999)).isEqualTo(100);
+        assertThat(tracker.percentile(1)).isEqualTo(100);
+        assertThat(tracker.percentile(0)).isEqualTo(1);
+    }
+
+    @Test
+    public void onlyTheMostRecentSamplesCount() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 0; i < LatencyTracker.CAPACITY; i++) {
+            tracker.record(1_000_000);
+        }
+        for (int i = 0; i < LatencyTracker.CAPACITY; i++) {
+            tracker.record(1_000);
+        }
+
+        assertThat(tracker.count()).isEqualTo(2 * LatencyTracker.CAPACITY);
+        assertThat(tracker.percentile(1)).isEqualTo(1_000);
+    }
+}
@@ -0,0 +1,82 @@
+package ejm.admin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes entities as CBOR or Smile, with the same mapping as JSON.
+ *
+ * Entities that are already encoded, byte arrays and streams, are left to the built in providers.
+ *
+ * @author Ken Finnigan
+ */
+@Provider
+@Consumes({MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+@Produces({MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+public class BinaryJacksonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBinary(mediaType) && !isEncoded(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = ConfigureJacksonProvider.mapperFor(mediaType);
+        return mapper
+                .readerFor(mapper.constructType(genericType))
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBinary(mediaType) && !isEncoded(type);
+    }
+
+    @Override
+    public long getSize(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        ObjectMapper mapper = ConfigureJacksonProvider.mapperFor(mediaType);
+        mapper
+                .writerFor(mapper.constructType(genericType))
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(entityStream, o);
+    }
+
+    static boolean isBinary(MediaType mediaType) {
+        return mediaType != null
+                && (mediaType.isCompatible(MediaTypes.APPLICATION_CBOR_TYPE)
+                    || mediaType.isCompatible(MediaTypes.APPLICATION_SMILE_TYPE))
+                && !mediaType.isWildcardSubtype();
+    }
+
+    private static boolean isEncoded(Class<?> type) {
+        return type == byte[].class
+                || type == String.class
+                || InputStream.class.isAssignableFrom(type)
+                || StreamingOutput.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,97 @@
+package ejm.admin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import ejm.admin.model.Category;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Statistics and eviction for the second-level and query caches of the AdminPU persistence unit.
+ *
+ * Writes made through JPA keep both caches current on their own. Rows written with plain JDBC,
+ * signalled by a {@link CategoryChangeEvent.Type#BULK} event, can't be tracked, so {@link CategoryCache}
+ * drops everything cached for {@link Category} once they commit, before its own views.
+ *
+ * @author Ken Finnigan
+ */
+@Path("/cache")
+@ApplicationScoped
+public class CacheResource {
+
+    @PersistenceUnit(unitName = "AdminPU")
+    private EntityManagerFactory emf;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> statistics() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        EntityStatistics category = statistics.getEntityStatistics(Category.class.getName());
+        Map<String, Object> entity = new LinkedHashMap<>();
+        entity.put("region", category.getCacheRegionName());
+        entity.put("hits", category.getCacheHitCount());
+        entity.put("misses", category.getCacheMissCount());
+        entity.put("puts", category.getCachePutCount());
+        entity.put("hitRatio", ratio(category.getCacheHitCount(), category.getCacheMissCount()));
+        entity.put("databaseLoads", category.getLoadCount());
+        if (category.getCacheRegionName() != null) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(category.getCacheRegionName());
+            if (region != null) {
+                entity.put("elementsInMemory", region.getElementCountInMemory());
+                entity.put("sizeInMemory", region.getSizeInMemory());
+            }
+        }
+
+        Map<String, Object> query = new LinkedHashMap<>();
+        query.put("hits", statistics.getQueryCacheHitCount());
+        query.put("misses", statistics.getQueryCacheMissCount());
+        query.put("puts", statistics.getQueryCachePutCount());
+        query.put("hitRatio", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        query.put("databaseExecutions", statistics.getQueryExecutionCount());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entity", entity);
+        result.put("query", query);
+        result.put("secondsSinceReset", (System.currentTimeMillis() - statistics.getStartTime()) / 1000);
+        return result;
+    }
+
+    /**
+     * Empties both caches and starts the counters again, so a sizing run measures from cold.
+     */
+    @DELETE
+    public Response clear() {
+        evict(emf);
+        emf.unwrap(SessionFactory.class).getStatistics().clear();
+        return Response
+                .noContent()
+                .build();
+    }
+
+    /**
+     * Drops every {@link Category} from the second-level cache, and every cached query result.
+     */
+    static void evict(EntityManagerFactory emf) {
+        emf.getCache().evict(Category.class);
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
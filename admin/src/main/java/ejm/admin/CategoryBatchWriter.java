@@ -0,0 +1,340 @@
+package ejm.admin;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.ws.rs.core.Response;
+
+import ejm.admin.model.Category;
+import ejm.admin.model.CategoryBatchItem;
+import ejm.admin.model.CategoryBatchResult;
+
+/**
+ * Applies a list of {@link CategoryBatchItem}s in a single transaction.
+ *
+ * Creates are ordered so parents referenced by {@code parentRef} are persisted before their
+ * children. Ids come from the pooled sequence and inserts and updates are sent as JDBC batches
+ * (see persistence.xml). The persistence context is flushed and cleared every
+ * {@link #FLUSH_INTERVAL} rows so its size doesn't grow with the request. Invalid items, and
+ * items depending on them, are reported in the result and don't fail the rest of the batch.
+ * A category may be updated by one item per batch, so rejecting an item never undoes another.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryBatchWriter {
+
+    /**
+     * Matches {@code hibernate.jdbc.batch_size}, so every flush sends full batches.
+     */
+    static final int FLUSH_INTERVAL = 50;
+
+    static final int FAILED_DEPENDENCY = 424;
+
+    static final int MAX_IN_LIST = 1000;
+
+    @PersistenceContext(unitName = "AdminPU")
+    private EntityManager em;
+
+    @Inject
+    private Validator validator;
+
+    @Inject
+    private Event<CategoryChangeEvent> changes;
+
+    @Transactional
+    public List<CategoryBatchResult> write(List<CategoryBatchItem> items) {
+        CategoryBatchResult[] results = new CategoryBatchResult[items.size()];
+
+        Map<String, Integer> refs = new HashMap<>();
+        Set<Integer> updatedIds = new HashSet<>();
+        Set<Integer> referencedIds = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            CategoryBatchItem item = items.get(i);
+            if (item.getParentRef() != null && item.getParentId() != null) {
+                results[i] = rejected(item, Response.Status.BAD_REQUEST, "Only one of parentRef and parentId may be set.");
+            } else if (item.getId() == null && item.getRef() != null && refs.putIfAbsent(item.getRef(), i) != null) {
+                results[i] = rejected(item, Response.Status.BAD_REQUEST, "Duplicate ref " + item.getRef() + ".");
+            } else if (item.getId() != null && !updatedIds.add(item.getId())) {
+                results[i] = rejected(item, Response.Status.BAD_REQUEST, "Duplicate id " + item.getId() + ".");
+            }
+            if (item.getId() != null) {
+                referencedIds.add(item.getId());
+            }
+            if (item.getParentId() != null) {
+                referencedIds.add(item.getParentId());
+            }
+        }
+
+        // Paths of every category a new or moved item may hang off, kept current as items are created and moved.
+        PathIndex paths = knownPaths(referencedIds);
+        List<Integer> creates = new ArrayList<>();
+        List<Integer> updates = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            CategoryBatchItem item = items.get(i);
+            if (results[i] != null) {
+                continue;
+            }
+            if (item.getParentId() != null && !paths.contains(item.getParentId())) {
+                results[i] = rejected(item, Response.Status.NOT_FOUND, "Parent category with id of " + item.getParentId() + " does not exist.");
+            } else if (item.getId() != null && !paths.contains(item.getId())) {
+                results[i] = rejected(item, Response.Status.NOT_FOUND, "Category with id of " + item.getId() + " does not exist.");
+            } else if (item.getId() == null) {
+                creates.add(i);
+            } else {
+                updates.add(i);
+            }
+        }
+
+        Map<String, Integer> created = new HashMap<>();
+        List<Object[]> moves = new ArrayList<>();
+        List<Object[]> updated = new ArrayList<>();
+        int pending = 0;
+
+        // Each pass persists every item whose parent is known, until nothing changes.
+        boolean progress = true;
+        while (!creates.isEmpty() && progress) {
+            progress = false;
+            List<Integer> deferred = new ArrayList<>();
+
+            for (int i : creates) {
+                CategoryBatchItem item = items.get(i);
+                Integer parentId = item.getParentId();
+
+                if (item.getParentRef() != null) {
+                    Integer parentIndex = refs.get(item.getParentRef());
+                    if (parentIndex == null) {
+                        results[i] = rejected(item, Response.Status.BAD_REQUEST, "Unknown parentRef " + item.getParentRef() + ".");
+                        progress = true;
+                        continue;
+                    }
+                    if (results[parentIndex] != null && results[parentIndex].getId() == null) {
+                        results[i] = new CategoryBatchResult(item.getRef(), null, FAILED_DEPENDENCY,
+                                                             "Parent item " + item.getParentRef() + " was rejected.");
+                        progress = true;
+                        continue;
+                    }
+                    parentId = created.get(item.getParentRef());
+                    if (parentId == null) {
+                        deferred.add(i);
+                        continue;
+                    }
+                }
+
+                Category category = new Category();
+                apply(item, category, parentId);
+                category.setPath(parentId == null ? CategoryPaths.ROOT : CategoryPaths.childPath(paths.get(parentId), parentId));
+
+                String violations = validate(category);
+                if (violations != null) {
+                    results[i] = rejected(item, Response.Status.BAD_REQUEST, violations);
+                } else {
+                    em.persist(category);
+                    paths.put(category.getId(), category.getPath());
+                    results[i] = new CategoryBatchResult(item.getRef(), category.getId(), Response.Status.CREATED.getStatusCode(), null);
+                    if (item.getRef() != null) {
+                        created.put(item.getRef(), category.getId());
+                    }
+                    changes.fire(CategoryChangeEvent.created(category));
+                    pending = flushIfDue(pending + 1);
+                }
+                progress = true;
+            }
+            creates = deferred;
+        }
+        for (int i : creates) {
+            results[i] = rejected(items.get(i), Response.Status.BAD_REQUEST, "parentRef " + items.get(i).getParentRef() + " is part of a cycle.");
+        }
+
+        for (int from = 0; from < updates.size(); from += FLUSH_INTERVAL) {
+            List<Integer> chunk = updates.subList(from, Math.min(from + FLUSH_INTERVAL, updates.size()));
+            Map<Integer, Category> entities = em.createQuery("SELECT c FROM Category c WHERE c.id IN :ids", Category.class)
+                    .setParameter("ids", chunk.stream().map(i -> items.get(i).getId()).collect(Collectors.toList()))
+                    .getResultList()
+                    .stream()
+                    .collect(Collectors.toMap(Category::getId, c -> c));
+
+            for (int i : chunk) {
+                CategoryBatchItem item = items.get(i);
+                Integer parentId = item.getParentId();
+                if (item.getParentRef() != null) {
+                    parentId = created.get(item.getParentRef());
+                    if (parentId == null) {
+                        results[i] = new CategoryBatchResult(item.getRef(), item.getId(), FAILED_DEPENDENCY,
+                                                             "Parent item " + item.getParentRef() + " was not created.");
+                        continue;
+                    }
+                }
+                String newPath = null;
+                if (parentId != null) {
+                    newPath = CategoryPaths.childPath(paths.get(parentId), parentId);
+                    if (CategoryPaths.isCycle(item.getId(), newPath)) {
+                        results[i] = rejected(item, Response.Status.BAD_REQUEST, "A category can't be moved under itself.");
+                        continue;
+                    }
+                }
+
+                Category category = entities.get(item.getId());
+                // The entity may predate a move of one of its ancestors earlier in this batch, the index doesn't.
+                String oldPath = paths.get(item.getId());
+                Map<String, Object> before = CategoryChangeEvent.fieldsOf(category);
+                apply(item, category, parentId);
+                if (newPath != null) {
+                    category.setPath(newPath);
+                }
+                category.setUpdated(LocalDateTime.now());
+
+                String violations = validate(category);
+                if (violations != null) {
+                    // Detaching discards the changes we just made to the managed instance, the only
+                    // ones it holds as no other item in the batch updates the same id.
+                    em.detach(category);
+                    results[i] = rejected(item, Response.Status.BAD_REQUEST, violations);
+                } else {
+                    if (newPath != null) {
+                        moves.add(new Object[]{item.getId(), oldPath, newPath});
+                        paths.move(item.getId(), newPath);
+                    }
+                    results[i] = new CategoryBatchResult(item.getRef(), item.getId(), Response.Status.OK.getStatusCode(), null);
+                    updated.add(new Object[]{before, category});
+                }
+            }
+            em.flush();
+
+            // Fired once flushed, so each event carries the version that was written.
+            for (Object[] update : updated) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> before = (Map<String, Object>) update[0];
+                changes.fire(CategoryChangeEvent.updated(before, (Category) update[1]));
+            }
+            updated.clear();
+            em.clear();
+
+            // Descendant paths are rewritten in bulk once the moved rows are written, so nothing
+            // still held in the persistence context can overwrite them.
+            for (Object[] move : moves) {
+                CategoryPaths.moveDescendants(em, (Integer) move[0], (String) move[1], (String) move[2]);
+            }
+            moves.clear();
+        }
+
+        em.flush();
+        return Arrays.asList(results);
+    }
+
+    private PathIndex knownPaths(Set<Integer> ids) {
+        PathIndex paths = new PathIndex();
+        List<Integer> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += MAX_IN_LIST) {
+            List<Object[]> rows = em.createQuery("SELECT c.id, c.path FROM Category c WHERE c.id IN :ids", Object[].class)
+                    .setParameter("ids", all.subList(from, Math.min(from + MAX_IN_LIST, all.size())))
+                    .getResultList();
+            for (Object[] row : rows) {
+                paths.put((Integer) row[0], row[1] == null ? CategoryPaths.ROOT : (String) row[1]);
+            }
+        }
+        return paths;
+    }
+
+    private void apply(CategoryBatchItem item, Category category, Integer parentId) {
+        if (item.getName() != null) {
+            category.setName(item.getName());
+        }
+        if (item.getHeader() != null) {
+            category.setHeader(item.getHeader());
+        }
+        if (item.getVisible() != null) {
+            category.setVisible(item.getVisible());
+        }
+        if (item.getImagePath() != null) {
+            category.setImagePath(item.getImagePath());
+        }
+        if (parentId != null) {
+            // A reference is enough to write parent_id, the parent itself is never loaded.
+            category.setParent(em.getReference(Category.class, parentId));
+        }
+    }
+
+    private String validate(Category category) {
+        Set<ConstraintViolation<Category>> violations = validator.validate(category);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .collect(Collectors.joining(", "));
+    }
+
+    private int flushIfDue(int pending) {
+        if (pending < FLUSH_INTERVAL) {
+            return pending;
+        }
+        em.flush();
+        em.clear();
+        return 0;
+    }
+
+    /**
+     * Paths of the categories a batch refers to, by id and by the prefix their descendants share, so a
+     * move rewrites the cached paths of its descendants with one range lookup rather than a scan.
+     */
+    static class PathIndex {
+
+        private final Map<Integer, String> paths = new HashMap<>();
+
+        private final NavigableMap<String, Integer> prefixes = new TreeMap<>();
+
+        boolean contains(Integer id) {
+            return paths.containsKey(id);
+        }
+
+        String get(Integer id) {
+            return paths.get(id);
+        }
+
+        void put(Integer id, String path) {
+            String old = paths.put(id, path);
+            if (old != null) {
+                prefixes.remove(CategoryPaths.childPath(old, id));
+            }
+            prefixes.put(CategoryPaths.childPath(path, id), id);
+        }
+
+        /**
+         * Moves {@code id} to {@code newPath}, taking every known descendant with it.
+         */
+        void move(Integer id, String newPath) {
+            String oldPrefix = CategoryPaths.childPath(paths.get(id), id);
+            String newPrefix = CategoryPaths.childPath(newPath, id);
+
+            // Paths are only digits and slashes, so this bound is past every path under the prefix.
+            Map<String, Integer> descendants = prefixes.subMap(oldPrefix, false, oldPrefix + Character.MAX_VALUE, false);
+            List<Integer> moved = new ArrayList<>(descendants.values());
+            for (Integer descendant : moved) {
+                put(descendant, newPrefix + paths.get(descendant).substring(oldPrefix.length()));
+            }
+            put(id, newPath);
+        }
+    }
+
+    private static CategoryBatchResult rejected(CategoryBatchItem item, Response.Status status, String message) {
+        return new CategoryBatchResult(item.getRef(), item.getId(), status.getStatusCode(), message);
+    }
+}
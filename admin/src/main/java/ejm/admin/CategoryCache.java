@@ -0,0 +1,129 @@
+package ejm.admin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * Holds the encoded bytes of the read-mostly category views, one entry per view and media type,
+ * and the {@link CategorySnapshot} they are built from.
+ *
+ * Entries are dropped once a {@link CategoryChangeEvent} has committed. After a
+ * {@link CategoryChangeEvent.Type#BULK} write the second-level and query caches are evicted first,
+ * otherwise a view rebuilt under the new tag could still be read from cached queries. A miss installs a
+ * single {@link FutureTask} before loading, so concurrent readers wait on the same rebuild
+ * instead of each going to the database.
+ *
+ * Every invalidation also bumps a generation counter that the views use as their entity tag,
+ * so conditional requests are answered without touching the database at all. The tag is
+ * prefixed with the start time of this instance so it can't repeat across restarts.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryCache {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @PersistenceUnit(unitName = "AdminPU")
+    private EntityManagerFactory emf;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ConcurrentMap<String, AtomicReference<FutureTask<byte[]>>> views = new ConcurrentHashMap<>();
+
+    private final AtomicReference<FutureTask<CategorySnapshot>> snapshot = new AtomicReference<>();
+
+    /**
+     * @param view names the view and its encoding, such as {@code tree} or {@code tree-cbor}
+     * @return the cached bytes of {@code view}, from {@code loader} if there are none
+     */
+    public byte[] view(String view, Callable<byte[]> loader) throws Exception {
+        return get(views.computeIfAbsent(view, v -> new AtomicReference<>()), loader);
+    }
+
+    /**
+     * @return the cached snapshot of the category table, from {@code loader} if there is none
+     */
+    public CategorySnapshot snapshot(Callable<CategorySnapshot> loader) throws Exception {
+        return get(snapshot, loader);
+    }
+
+    /**
+     * @return the cached snapshot if one is already built, otherwise {@code null} without loading or
+     * waiting for one.
+     */
+    public CategorySnapshot builtSnapshot() {
+        FutureTask<CategorySnapshot> task = snapshot.get();
+        if (task == null || !task.isDone()) {
+            return null;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return a tag for any representation derived from the category table, changing with every write.
+     */
+    public EntityTag tag(String view) {
+        return new EntityTag(view + "-" + epoch + "-" + generation.get());
+    }
+
+    public void invalidate() {
+        // Clear before bumping, so a reader that sees the new generation can't be served old bytes.
+        snapshot.set(null);
+        views.values().forEach(entry -> entry.set(null));
+        generation.incrementAndGet();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryChangeEvent event) {
+        if (event.getType() == CategoryChangeEvent.Type.BULK) {
+            CacheResource.evict(emf);
+        }
+        invalidate();
+    }
+
+    private static <T> T get(AtomicReference<FutureTask<T>> entry, Callable<T> loader) throws Exception {
+        FutureTask<T> task = entry.get();
+        if (task == null) {
+            FutureTask<T> created = new FutureTask<>(loader);
+            if (entry.compareAndSet(null, created)) {
+                // The load only starts after the task is visible, so a commit that
+                // invalidates before this point is always reflected in the result.
+                task = created;
+                task.run();
+            } else {
+                task = entry.get();
+                if (task == null) {
+                    return get(entry, loader);
+                }
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Don't keep a failed load around, the next reader should retry.
+            entry.compareAndSet(task, null);
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ejm.admin;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import ejm.admin.model.Category;
+
+/**
+ * CDI event fired by {@link CategoryResource} whenever a write to the category table is made.
+ * Observers that need committed state should use {@code during = TransactionPhase.AFTER_SUCCESS}.
+ *
+ * Events for a single category carry its version once written and the fields that were changed,
+ * captured when the event is created so they reflect this write and nothing later.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * Any number of rows were written outside JPA, {@link #getCategoryId()} is {@code null}.
+         */
+        BULK
+    }
+
+    private final Type type;
+
+    private final Integer categoryId;
+
+    private final Integer version;
+
+    private final Map<String, Object> fields;
+
+    public CategoryChangeEvent(Type type, Integer categoryId) {
+        this(type, categoryId, null, Collections.emptyMap());
+    }
+
+    public CategoryChangeEvent(Type type, Integer categoryId, Integer version, Map<String, Object> fields) {
+        this.type = type;
+        this.categoryId = categoryId;
+        this.version = version;
+        this.fields = fields;
+    }
+
+    public static CategoryChangeEvent created(Category category) {
+        return new CategoryChangeEvent(Type.CREATED, category.getId(), category.getVersion(), fieldsOf(category));
+    }
+
+    /**
+     * @param before the result of {@link #fieldsOf(Category)} taken before the change was applied
+     * @param after the category once flushed, so its version is the one written
+     */
+    public static CategoryChangeEvent updated(Map<String, Object> before, Category after) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        fieldsOf(after).forEach((name, value) -> {
+            if (!Objects.equals(before.get(name), value)) {
+                changed.put(name, value);
+            }
+        });
+        return new CategoryChangeEvent(Type.UPDATED, after.getId(), after.getVersion(), changed);
+    }
+
+    public static CategoryChangeEvent deleted(Category category) {
+        return new CategoryChangeEvent(Type.DELETED, category.getId(), category.getVersion(), Collections.emptyMap());
+    }
+
+    /**
+     * @return the client visible fields of a category, with the parent as its id.
+     */
+    public static Map<String, Object> fieldsOf(Category category) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", category.getName());
+        fields.put("header", category.getHeader());
+        fields.put("visible", category.isVisible());
+        fields.put("imagePath", category.getImagePath());
+        fields.put("parent", Category.idOf(category.getParent()));
+        return fields;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * @return the version written by this change, or {@code null} for {@link Type#BULK}.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the fields set on create, or the ones whose value changed on update, by name.
+     */
+    public Map<String, Object> getFields() {
+        return fields;
+    }
+}
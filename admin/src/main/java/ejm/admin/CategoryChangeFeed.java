@@ -0,0 +1,218 @@
+package ejm.admin;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import ejm.admin.CategoryChangeHistory.Change;
+
+/**
+ * Pushes committed {@link CategoryChangeEvent}s to Server-Sent Events subscribers.
+ *
+ * Every change gets an id of the form {@code <epoch>-<sequence>}, and the last {@link #HISTORY} changes
+ * are kept in a {@link CategoryChangeHistory} so a client reconnecting with {@code Last-Event-ID} is sent
+ * what it missed. A client whose id can't be resumed from, because it is too old or from before a
+ * restart, is sent a {@code reset} event and should reload the categories it holds.
+ *
+ * Writers only ever append to a subscriber's buffer, sending happens on a thread per busy subscriber.
+ * When a buffer reaches {@link #BUFFER} events the subscriber is sent an {@code overflow} event and
+ * disconnected. The overflow event has no id, so the client's own {@code Last-Event-ID} still points
+ * at the last change it received and reconnecting resumes from there.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryChangeFeed {
+
+    static final int HISTORY = Integer.getInteger("ejm.admin.changes.history", 1000);
+
+    static final int BUFFER = Integer.getInteger("ejm.admin.changes.buffer", 256);
+
+    static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final CategoryChangeHistory history = new CategoryChangeHistory(Long.toString(System.currentTimeMillis(), 36), HISTORY);
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger count = new AtomicInteger();
+        senders = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "category-changes-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    /**
+     * Starts sending changes to {@code sink}, first replaying any made after {@code lastEventId}.
+     */
+    public void subscribe(SseEventSink sink, Sse sse, String lastEventId) {
+        Subscriber subscriber = new Subscriber(sink, sse);
+
+        synchronized (lock) {
+            if (lastEventId != null) {
+                history.since(lastEventId).forEach(subscriber::replay);
+            }
+            // Registered while holding the lock, so nothing published between the replay and now is missed.
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryChangeEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", event.getCategoryId());
+        payload.put("version", event.getVersion());
+        payload.put("fields", event.getFields());
+
+        String data;
+        try {
+            data = ConfigureJacksonProvider.MAPPER.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        String name = event.getType().name().toLowerCase();
+
+        synchronized (lock) {
+            Change change = history.append(name, data);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    private static OutboundSseEvent toEvent(Change change, Sse sse) {
+        OutboundSseEvent.Builder builder = sse.newEventBuilder()
+                .name(change.getName())
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(String.class, change.getData());
+        if (change.getId() != null) {
+            builder.id(change.getId());
+        }
+        return builder.build();
+    }
+
+    private static final Change OVERFLOW = new Change(null, "overflow", "{}");
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEventSink sink;
+
+        private final Sse sse;
+
+        // Guarded by this
+        private final ArrayDeque<Change> queue = new ArrayDeque<>();
+
+        // Guarded by this
+        private boolean draining;
+
+        // Guarded by this
+        private boolean overflowed;
+
+        Subscriber(SseEventSink sink, Sse sse) {
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        /**
+         * Replayed history isn't held to the buffer limit, the client asked for all of it.
+         */
+        synchronized void replay(Change change) {
+            queue.add(change);
+        }
+
+        synchronized void offer(Change change) {
+            if (overflowed) {
+                return;
+            }
+            if (queue.size() >= BUFFER) {
+                queue.clear();
+                queue.add(OVERFLOW);
+                overflowed = true;
+            } else {
+                queue.add(change);
+            }
+            schedule();
+        }
+
+        synchronized void schedule() {
+            if (!draining && !queue.isEmpty()) {
+                draining = true;
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Change change;
+                synchronized (this) {
+                    change = queue.poll();
+                    if (change == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                if (sink.isClosed()) {
+                    close();
+                    return;
+                }
+                try {
+                    sink.send(toEvent(change, sse))
+                            .toCompletableFuture()
+                            .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    close();
+                    return;
+                }
+                if (change == OVERFLOW) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            subscribers.remove(this);
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                // Already gone
+            }
+        }
+    }
+}
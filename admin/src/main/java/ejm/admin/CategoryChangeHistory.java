@@ -0,0 +1,109 @@
+package ejm.admin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The last changes published by {@link CategoryChangeFeed}, in a fixed size ring, and the decision of
+ * what a client reconnecting with {@code Last-Event-ID} should be sent.
+ *
+ * Ids are {@code <epoch>-<sequence>}, with sequences counting from 1. Not thread safe, the feed
+ * guards it with its own lock.
+ *
+ * @author Ken Finnigan
+ */
+final class CategoryChangeHistory {
+
+    static final String RESET = "reset";
+
+    private final String epoch;
+
+    private final Change[] changes;
+
+    private long sequence;
+
+    CategoryChangeHistory(String epoch, int capacity) {
+        this.epoch = epoch;
+        this.changes = new Change[capacity];
+    }
+
+    /**
+     * @return the change, with the next id.
+     */
+    Change append(String name, String data) {
+        Change change = new Change(id(++sequence), name, data);
+        changes[slot(sequence)] = change;
+        return change;
+    }
+
+    /**
+     * @return every change after {@code lastEventId}, oldest first, or a single {@code reset} if the
+     * id is malformed, from another epoch, ahead of the feed or older than the oldest change kept.
+     */
+    List<Change> since(String lastEventId) {
+        long after = resumePoint(lastEventId);
+        long oldest = Math.max(1, sequence - changes.length + 1);
+        if (after < oldest - 1 || after > sequence) {
+            return Collections.singletonList(new Change(id(sequence), RESET, "{}"));
+        }
+        List<Change> missed = new ArrayList<>((int) (sequence - after));
+        for (long next = after + 1; next <= sequence; next++) {
+            missed.add(changes[slot(next)]);
+        }
+        return missed;
+    }
+
+    String id(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % changes.length);
+    }
+
+    /**
+     * @return the sequence a client last saw, or -1 if the id is malformed or from another epoch.
+     */
+    long resumePoint(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !epoch.equals(lastEventId.substring(0, dash))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static final class Change {
+
+        private final String id;
+
+        private final String name;
+
+        private final String data;
+
+        Change(String id, String name, String data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        /**
+         * @return the event id, {@code null} for events that aren't part of the history.
+         */
+        String getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ejm.admin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import ejm.admin.model.CategoryRecord;
+
+/**
+ * Reads {@link CategoryRecord}s one line at a time from CSV.
+ *
+ * The first line names the columns, using the same names as the JSON representation
+ * ({@code id, name, header, visible, imagePath, parent}); unknown columns are ignored.
+ * Fields may be double quoted, with {@code ""} for a literal quote, but can't span lines.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryCsvReader implements Iterator<CategoryRecord> {
+
+    private final BufferedReader reader;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private String line;
+
+    public CategoryCsvReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        if (!columns.containsKey("id") || !columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain at least id and name columns.");
+        }
+        line = nextLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return line != null;
+    }
+
+    @Override
+    public CategoryRecord next() {
+        if (line == null) {
+            throw new NoSuchElementException();
+        }
+
+        List<String> fields = split(line);
+        CategoryRecord record = new CategoryRecord();
+        record.setId(toInteger(field(fields, "id")));
+        record.setName(field(fields, "name"));
+        record.setHeader(field(fields, "header"));
+        String visible = field(fields, "visible");
+        record.setVisible(visible == null ? null : Boolean.valueOf(visible));
+        record.setImagePath(field(fields, "imagePath"));
+        record.setParent(toInteger(field(fields, "parent")));
+
+        try {
+            line = nextLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return record;
+    }
+
+    private String nextLine() throws IOException {
+        String next;
+        do {
+            next = reader.readLine();
+        } while (next != null && next.trim().isEmpty());
+        return next;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer toInteger(String value) {
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,101 @@
+package ejm.admin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.sql.DataSource;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes every category straight from a forward-only JDBC cursor to the response.
+ *
+ * Rows are never collected into a list or attached to a persistence context, so heap use is
+ * bounded by the fetch size and the first bytes go out as soon as the first row is read.
+ * The parent is written as an id, the same as every other category endpoint writes it.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryExporter {
+
+    static final int FETCH_SIZE = 500;
+
+    private static final String SELECT_ALL =
+            "SELECT id, name, header, visible, image_path, parent_id, created, updated, version FROM category ORDER BY id";
+
+    @Resource(lookup = "java:/jboss/datasources/AdminDS")
+    private DataSource dataSource;
+
+    /**
+     * @return a single JSON array containing every category.
+     */
+    public StreamingOutput json() {
+        return output -> export(output, false);
+    }
+
+    /**
+     * @return one JSON object per category, each on its own line.
+     */
+    public StreamingOutput ndjson() {
+        return output -> export(output, true);
+    }
+
+    private void export(OutputStream output, boolean lineDelimited) throws IOException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+
+            try (ResultSet rs = statement.executeQuery();
+                 JsonGenerator generator = ConfigureJacksonProvider.MAPPER.getFactory().createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (lineDelimited) {
+                    generator.setRootValueSeparator(null);
+                } else {
+                    generator.writeStartArray();
+                }
+
+                while (rs.next()) {
+                    writeCategory(generator, rs);
+                    if (lineDelimited) {
+                        generator.writeRaw('\n');
+                    }
+                }
+
+                if (!lineDelimited) {
+                    generator.writeEndArray();
+                }
+            }
+        } catch (SQLException e) {
+            throw new WebApplicationException(e);
+        }
+    }
+
+    private void writeCategory(JsonGenerator generator, ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getInt(1));
+        generator.writeStringField("name", rs.getString(2));
+        generator.writeStringField("header", rs.getString(3));
+        generator.writeObjectField("visible", rs.getObject(4));
+        generator.writeStringField("imagePath", rs.getString(5));
+        generator.writeObjectField("parent", rs.getObject(6));
+        generator.writeObjectField("created", toLocalDateTime(rs.getTimestamp(7)));
+        generator.writeObjectField("updated", toLocalDateTime(rs.getTimestamp(8)));
+        generator.writeObjectField("version", rs.getObject(9));
+        generator.writeEndObject();
+    }
+
+    private static Object toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,135 @@
+package ejm.admin;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import ejm.admin.model.CategoryGeneratorSettings;
+import ejm.admin.model.CategoryRecord;
+
+/**
+ * Generates a synthetic category hierarchy as {@link CategoryRecord}s, for {@link CategoryImporter} to load.
+ *
+ * Categories are generated breadth first, parents always before their children, with ids following on
+ * from the first. Breadth first order means the categories still to be given children are exactly
+ * the ones generated so far, in id order, so nothing but a few counters is kept however large the
+ * hierarchy. Every random choice comes from one {@link SplittableRandom}, so equal settings generate
+ * equal hierarchies.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryGenerator implements Iterator<CategoryRecord> {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2002, 1, 1, 0, 0);
+
+    private static final char[] CONSONANTS = "bcdfghjklmnprstvwz".toCharArray();
+
+    private static final char[] VOWELS = "aeiou".toCharArray();
+
+    private final CategoryGeneratorSettings settings;
+
+    private final int firstId;
+
+    private final SplittableRandom random;
+
+    private int generated;
+
+    /**
+     * Index of the category whose children are being generated, -1 for the settings' parent.
+     */
+    private int parentIndex = -1;
+
+    private int remainingChildren;
+
+    private int childLevel = 1;
+
+    /**
+     * Index of the first category of the level below the current parent's.
+     */
+    private int levelEnd;
+
+    public CategoryGenerator(CategoryGeneratorSettings settings, int firstId) {
+        settings.validate();
+        this.settings = settings;
+        this.firstId = firstId;
+        this.random = new SplittableRandom(settings.getSeed());
+        this.remainingChildren = Math.max(1, fanOut());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (generated >= settings.getCount()) {
+            return false;
+        }
+        while (remainingChildren == 0) {
+            int next = parentIndex + 1;
+            if (next >= generated) {
+                return false;
+            }
+            if (next == levelEnd) {
+                childLevel++;
+                levelEnd = generated;
+            }
+            if (childLevel > settings.getDepth()) {
+                return false;
+            }
+            parentIndex = next;
+            remainingChildren = fanOut();
+        }
+        return true;
+    }
+
+    @Override
+    public CategoryRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int index = generated++;
+        remainingChildren--;
+
+        CategoryRecord record = new CategoryRecord();
+        record.setId(firstId + index);
+        record.setParent(parentIndex < 0 ? settings.getParent() : firstId + parentIndex);
+        record.setName(name(settings.getNameLengthMin() + random.nextInt(settings.getNameLengthMax() - settings.getNameLengthMin() + 1)));
+        record.setHeader("header");
+        record.setVisible(random.nextDouble() < settings.getVisibleRatio());
+        record.setImagePath("images/" + record.getId() + ".png");
+        record.setCreated(CREATED.plusSeconds(index));
+        return record;
+    }
+
+    /**
+     * @return the number of children for the next parent, between the settings' minimum and maximum and
+     * leaning towards the minimum as the skew grows.
+     */
+    private int fanOut() {
+        int span = settings.getFanOutMax() - settings.getFanOutMin() + 1;
+        int extra = (int) (span * Math.pow(random.nextDouble(), settings.getFanOutSkew()));
+        return settings.getFanOutMin() + Math.min(extra, span - 1);
+    }
+
+    /**
+     * @return capitalized words of alternating consonants and vowels, {@code length} characters in all.
+     */
+    private String name(int length) {
+        char[] name = new char[length];
+        int wordStart = 0;
+        int wordLength = 3 + random.nextInt(7);
+        for (int i = 0; i < length; i++) {
+            int position = i - wordStart;
+            // A word ends with a space, unless that would leave a word too short to read at the end.
+            if (position == wordLength && length - i > 3) {
+                name[i] = ' ';
+                wordStart = i + 1;
+                wordLength = 3 + random.nextInt(7);
+                continue;
+            }
+            char c = position % 2 == 0
+                    ? CONSONANTS[random.nextInt(CONSONANTS.length)]
+                    : VOWELS[random.nextInt(VOWELS.length)];
+            name[i] = position == 0 ? Character.toUpperCase(c) : c;
+        }
+        return new String(name);
+    }
+}
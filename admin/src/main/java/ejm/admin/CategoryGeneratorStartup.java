@@ -0,0 +1,38 @@
+package ejm.admin;
+
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import ejm.admin.model.CategoryGeneratorSettings;
+import ejm.admin.model.CategoryImportReport;
+
+/**
+ * Loads a generated catalog at boot when {@code ejm.admin.generate.count} is set, on top of the rows
+ * from load.sql, so a dev or test instance starts with production-scale data. The other
+ * {@code ejm.admin.generate.*} properties shape it, see {@link CategoryGeneratorSettings}.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryGeneratorStartup {
+
+    private static final Logger LOG = Logger.getLogger(CategoryGeneratorStartup.class.getName());
+
+    @Inject
+    private CategoryImporter importer;
+
+    void generate(@Observes @Initialized(ApplicationScoped.class) Object event) throws SQLException {
+        CategoryGeneratorSettings settings = CategoryGeneratorSettings.fromSystemProperties();
+        if (settings.getCount() <= 0) {
+            return;
+        }
+        CategoryImportReport report = importer.generate(settings);
+        LOG.info("Generated " + report.getInserted() + " categories from seed " + settings.getSeed()
+                         + " in " + report.getMillis() + "ms");
+    }
+}
@@ -0,0 +1,374 @@
+package ejm.admin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.sql.DataSource;
+
+import ejm.admin.model.Category;
+import ejm.admin.model.CategoryGeneratorSettings;
+import ejm.admin.model.CategoryImportReport;
+import ejm.admin.model.CategoryRecord;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * Streams {@link CategoryRecord}s into the category table with batched JDBC inserts.
+ *
+ * Records are consumed one at a time and never collected, and only the ids seen so far are kept, in a
+ * {@link BitSet}. A record whose parent is already known is inserted with its parent. Otherwise it is
+ * inserted without one and linked once everything else is in, so input doesn't have to be sorted
+ * parents first. Memory grows with the number of such out of order rows, not with the input.
+ * Materialized paths are filled in afterwards with set based updates.
+ *
+ * Rows are written without going through JPA or Bean Validation; only the column constraints that
+ * would fail the whole batch (missing id or name, over-long strings, duplicate ids) are checked here.
+ *
+ * The whole import is one transaction, so one that fails part way, on bad input or otherwise, leaves
+ * nothing behind rather than rows without their parents or paths.
+ *
+ * Ids in the block Hibernate may be handing out from the category sequence are rejected as well, see
+ * {@link #reservedIds()}, and the sequence is moved past the imported ids afterwards.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryImporter {
+
+    static final int BATCH_SIZE = 1000;
+
+    static final int NAME_LENGTH = 50;
+
+    static final int IMAGE_PATH_LENGTH = 120;
+
+    private static final String INSERT =
+            "INSERT INTO category (id, name, header, visible, image_path, parent_id, created, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String LINK = "UPDATE category SET parent_id = ? WHERE id = ?";
+
+    @Resource(lookup = "java:/jboss/datasources/AdminDS")
+    private DataSource dataSource;
+
+    @PersistenceUnit(unitName = "AdminPU")
+    private EntityManagerFactory emf;
+
+    @Inject
+    private Event<CategoryChangeEvent> changes;
+
+    public CategoryImportReport load(Iterator<CategoryRecord> records) throws SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        long inserted = 0;
+        long duplicates = 0;
+        long rejected = 0;
+        long orphaned;
+        Links deferred = new Links();
+
+        try (Connection connection = dataSource.getConnection()) {
+            BitSet known = knownIds(connection);
+            BitSet imported = new BitSet();
+            // Read before the block, so one Hibernate takes in between is past next and caught afterwards.
+            long next = nextSequenceValue(connection);
+            IdBlock reserved = reservedIds();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                int batched = 0;
+
+                while (records.hasNext()) {
+                    CategoryRecord record = records.next();
+                    rows++;
+
+                    Integer id = record.getId();
+                    if (id == null || id < 0 || reserved.contains(id) || record.getName() == null
+                            || !fits(record.getName(), NAME_LENGTH) || !fits(record.getImagePath(), IMAGE_PATH_LENGTH)) {
+                        rejected++;
+                        continue;
+                    }
+                    if (known.get(id)) {
+                        duplicates++;
+                        continue;
+                    }
+
+                    Integer parent = record.getParent();
+                    if (parent != null && (parent < 0 || !known.get(parent))) {
+                        deferred.add(id, parent);
+                        parent = null;
+                    }
+
+                    insert.setInt(1, id);
+                    insert.setString(2, record.getName());
+                    insert.setString(3, record.getHeader());
+                    insert.setObject(4, record.getVisible(), Types.BOOLEAN);
+                    insert.setString(5, record.getImagePath());
+                    insert.setObject(6, parent, Types.INTEGER);
+                    insert.setTimestamp(7, record.getCreated() == null ? now : Timestamp.valueOf(record.getCreated()));
+                    insert.addBatch();
+                    known.set(id);
+                    imported.set(id);
+                    inserted++;
+
+                    if (++batched == BATCH_SIZE) {
+                        insert.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    insert.executeBatch();
+                }
+
+                orphaned = link(connection, known, deferred);
+                fillPaths(connection);
+                restartSequence(connection, next, imported);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            if (rows > 0) {
+                changes.fire(new CategoryChangeEvent(CategoryChangeEvent.Type.BULK, null));
+            }
+        }
+
+        return new CategoryImportReport(rows, inserted, duplicates, rejected, deferred.size(), orphaned,
+                                        (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Generates a hierarchy shaped by {@code settings} with a {@link CategoryGenerator} and loads it.
+     *
+     * @throws IllegalArgumentException if the settings are out of range, the parent doesn't exist, or
+     * {@code firstId} would take ids Hibernate may still hand out to new categories.
+     */
+    public CategoryImportReport generate(CategoryGeneratorSettings settings) throws SQLException {
+        settings.validate();
+        int firstId;
+        try (Connection connection = dataSource.getConnection()) {
+            if (!exists(connection, settings.getParent())) {
+                throw new IllegalArgumentException("Parent category with id of " + settings.getParent() + " does not exist.");
+            }
+            IdBlock reserved = reservedIds();
+            if (settings.getFirstId() == null) {
+                // Start past the block Hibernate holds as well, not just past the table, or the next creates clash.
+                firstId = (int) Math.min(Math.max(maxId(connection) + 1L, reserved.end), Integer.MAX_VALUE);
+            } else {
+                firstId = settings.getFirstId();
+                if (firstId < reserved.end && firstId + (long) settings.getCount() > reserved.start) {
+                    throw new IllegalArgumentException("Ids from " + firstId + " overlap ids " + reserved.start + " to "
+                                                       + (reserved.end - 1) + ", which are reserved for new categories.");
+                }
+            }
+        }
+        if ((long) firstId + settings.getCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ids from " + firstId + " would run past the largest id.");
+        }
+        return load(new CategoryGenerator(settings, firstId));
+    }
+
+    private static boolean exists(Connection connection, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM category WHERE id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static int maxId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(id) FROM category")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private BitSet knownIds(Connection connection) throws SQLException {
+        BitSet known = new BitSet();
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(CategoryExporter.FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery("SELECT id FROM category")) {
+                while (rs.next()) {
+                    known.set(rs.getInt(1));
+                }
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Links every deferred row whose parent now exists.
+     *
+     * @return the number of rows left without a parent.
+     */
+    private long link(Connection connection, BitSet known, Links deferred) throws SQLException {
+        long orphaned = 0;
+        try (PreparedStatement update = connection.prepareStatement(LINK)) {
+            int batched = 0;
+            for (int i = 0; i < deferred.size(); i++) {
+                int parent = deferred.parent(i);
+                if (parent < 0 || !known.get(parent)) {
+                    orphaned++;
+                    continue;
+                }
+                update.setInt(1, parent);
+                update.setInt(2, deferred.id(i));
+                update.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    update.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                update.executeBatch();
+            }
+        }
+        return orphaned;
+    }
+
+    /**
+     * Sets the materialized path of every imported row, one tree level per statement, so the
+     * database does the work and nothing is held in memory.
+     */
+    private void fillPaths(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE category SET path = '/' WHERE path IS NULL AND parent_id IS NULL");
+
+            int updated;
+            do {
+                updated = statement.executeUpdate(
+                        "UPDATE category SET path = (SELECT p.path || p.id || '/' FROM category p WHERE p.id = category.parent_id) " +
+                        "WHERE path IS NULL AND parent_id IN (SELECT id FROM category WHERE path IS NOT NULL)");
+            } while (updated > 0);
+        }
+    }
+
+    /**
+     * @return the ids Hibernate may hand out without going back to the sequence. With pooled-lo every
+     * value it reads from the sequence starts a block of {@code allocationSize} ids, so this is the block
+     * starting at the last one it read. Empty until it has read one: the sequence itself can't tell
+     * whether that has happened, and before it nothing is held.
+     */
+    IdBlock reservedIds() {
+        IdentifierGenerator generator = emf.unwrap(SessionFactoryImplementor.class)
+                .getIdentifierGenerator(Category.class.getName());
+        if (generator instanceof SequenceStyleGenerator) {
+            Optimizer optimizer = ((SequenceStyleGenerator) generator).getOptimizer();
+            IntegralDataTypeHolder last = optimizer.getLastSourceValue();
+            if (last != null) {
+                long start = last.makeValue().longValue();
+                return new IdBlock(start, start + optimizer.getIncrementSize());
+            }
+        }
+        return new IdBlock(0, 0);
+    }
+
+    /**
+     * @return the value the category sequence returns next, which starts the next block Hibernate takes,
+     * or 0 if there's no sequence.
+     */
+    static long nextSequenceValue(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT CURRENT_VALUE + INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'CATEGORY_SEQUENCE'")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Moves the id sequence past imported ids, so blocks handed out afterwards don't collide with them.
+     *
+     * @param next the value the sequence would have returned next when the import started
+     * @throws IllegalStateException if Hibernate took a block covering imported ids while they were
+     * being inserted, in which case the import is rolled back and can be retried.
+     */
+    private void restartSequence(Connection connection, long next, BitSet imported) throws SQLException {
+        long current = nextSequenceValue(connection);
+        if (current != next) {
+            // Every block taken since the import started lies between the two.
+            int clash = imported.nextSetBit((int) Math.min(next, Integer.MAX_VALUE));
+            if (clash >= 0 && clash < current) {
+                throw new IllegalStateException("Category id " + clash + " was allocated while importing, retry the import.");
+            }
+        }
+
+        int max = imported.length() - 1;
+        if (max >= current) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER SEQUENCE category_sequence RESTART WITH " + (max + 1L));
+            }
+        }
+    }
+
+    private static boolean fits(String value, int length) {
+        return value == null || value.length() <= length;
+    }
+
+    /**
+     * Range of ids from {@code start}, inclusive, to {@code end}, exclusive.
+     */
+    static class IdBlock {
+        final long start;
+
+        final long end;
+
+        IdBlock(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean contains(long id) {
+            return id >= start && id < end;
+        }
+    }
+
+    /**
+     * Growable list of (id, parent) pairs held in a single int array.
+     */
+    static class Links {
+        private int[] pairs = new int[64];
+
+        private int size;
+
+        void add(int id, int parent) {
+            if (size * 2 == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[size * 2] = id;
+            pairs[size * 2 + 1] = parent;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int id(int index) {
+            return pairs[index * 2];
+        }
+
+        int parent(int index) {
+            return pairs[index * 2 + 1];
+        }
+    }
+}
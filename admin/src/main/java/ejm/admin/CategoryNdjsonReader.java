@@ -0,0 +1,71 @@
+package ejm.admin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ejm.admin.model.CategoryRecord;
+
+/**
+ * Reads {@link CategoryRecord}s one line at a time from newline delimited JSON.
+ *
+ * Each line is parsed on its own, so a line that isn't a valid record fails with an
+ * {@link IllegalArgumentException} naming that line, rather than wherever the parser gave up.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryNdjsonReader implements Iterator<CategoryRecord> {
+
+    private static final ObjectReader READER = ConfigureJacksonProvider.MAPPER.readerFor(CategoryRecord.class);
+
+    private final BufferedReader reader;
+
+    private String line;
+
+    private int lineNumber;
+
+    public CategoryNdjsonReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        line = nextLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return line != null;
+    }
+
+    @Override
+    public CategoryRecord next() {
+        if (line == null) {
+            throw new NoSuchElementException();
+        }
+
+        CategoryRecord record;
+        try {
+            record = READER.readValue(line);
+        } catch (IOException e) {
+            String message = e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage();
+            throw new IllegalArgumentException("Line " + lineNumber + " is not a valid category: " + message);
+        }
+
+        try {
+            line = nextLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return record;
+    }
+
+    private String nextLine() throws IOException {
+        String next;
+        do {
+            next = reader.readLine();
+            lineNumber++;
+        } while (next != null && next.trim().isEmpty());
+        return next;
+    }
+}
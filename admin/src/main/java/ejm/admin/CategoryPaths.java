@@ -0,0 +1,93 @@
+package ejm.admin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Helpers for the materialized path kept in {@code Category.path}.
+ *
+ * A category's path lists the ids of its ancestors, root first, so its children have
+ * {@code path + id + "/"} and every descendant's path starts with that prefix.
+ *
+ * @author Ken Finnigan
+ */
+public final class CategoryPaths {
+
+    public static final String ROOT = "/";
+
+    private CategoryPaths() {
+    }
+
+    /**
+     * @return the path of a child of the given category.
+     */
+    public static String childPath(String parentPath, Integer parentId) {
+        return (parentPath == null ? ROOT : parentPath) + parentId + "/";
+    }
+
+    /**
+     * @return the ids in the path, root first.
+     */
+    public static List<Integer> ancestorIds(String path) {
+        List<Integer> ids = new ArrayList<>();
+        int start = 1;
+        for (int end = path.indexOf('/', start); end > 0; end = path.indexOf('/', start)) {
+            ids.add(Integer.valueOf(path.substring(start, end)));
+            start = end + 1;
+        }
+        return ids;
+    }
+
+    /**
+     * @return the path of the given category, or {@code null} if it doesn't exist.
+     */
+    public static String pathOf(EntityManager em, Integer categoryId) {
+        List<String> paths = em.createNamedQuery("Category.findPath", String.class)
+                .setParameter("id", categoryId)
+                .getResultList();
+        if (paths.isEmpty()) {
+            return null;
+        }
+        return paths.get(0) == null ? ROOT : paths.get(0);
+    }
+
+    /**
+     * @return {@code true} if moving the category to {@code newPath} would place it under itself.
+     */
+    public static boolean isCycle(Integer categoryId, String newPath) {
+        return newPath.contains("/" + categoryId + "/");
+    }
+
+    /**
+     * Rewrites the paths of every descendant after a category moved from {@code oldPath} to
+     * {@code newPath}, in a single UPDATE over the path index.
+     *
+     * @return the number of descendants updated.
+     */
+    public static int moveDescendants(EntityManager em, Integer categoryId, String oldPath, String newPath) {
+        if (oldPath == null || oldPath.equals(newPath)) {
+            return 0;
+        }
+        String oldPrefix = childPath(oldPath, categoryId);
+        return em.createNamedQuery("Category.movePaths")
+                .setParameter("newPrefix", childPath(newPath, categoryId))
+                .setParameter("keepFrom", oldPrefix.length() + 1)
+                .setParameter("oldPrefix", oldPrefix + "%")
+                .executeUpdate();
+    }
+
+    /**
+     * @return the number of ancestors in the path.
+     */
+    public static int depth(String path) {
+        int slashes = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                slashes++;
+            }
+        }
+        return slashes - 1;
+    }
+}
@@ -1,26 +1,53 @@
 package ejm.admin;
 
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import javax.validation.ConstraintViolationException;
+import javax.ws.rs.BeanParam;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
 
 import ejm.admin.model.Category;
-import ejm.admin.model.CategoryTree;
+import ejm.admin.model.CategoryBatchItem;
+import ejm.admin.model.CategoryGeneratorSettings;
+import ejm.admin.model.CategoryRecord;
+import ejm.admin.model.CategoryReferenceSerializer;
 
 /**
  * @author Ken Finnigan
@@ -29,26 +56,298 @@ import ejm.admin.model.CategoryTree;
 @ApplicationScoped
 public class CategoryResource {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_BATCH_SIZE = 20000;
+
+    private static final MediaType[] FORMATS = {
+            MediaType.APPLICATION_JSON_TYPE, MediaTypes.APPLICATION_CBOR_TYPE, MediaTypes.APPLICATION_SMILE_TYPE
+    };
+
     @PersistenceContext(unitName = "AdminPU")
     private EntityManager em;
 
+    @Inject
+    private CategoryCache cache;
+
+    @Inject
+    private CategoryTreeLoader treeLoader;
+
+    @Inject
+    private CategoryExporter exporter;
+
+    @Inject
+    private CategoryBatchWriter batchWriter;
+
+    @Inject
+    private CategoryImporter importer;
+
+    @Inject
+    private CategoryChangeFeed feed;
+
+    @Inject
+    private Event<CategoryChangeEvent> changes;
+
     @GET
-    @Produces(MediaType.APPLICATION_JSON)
-    public Collection<Category> all() throws Exception {
-        return em.createNamedQuery("Category.findAll", Category.class)
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    public Response all(@QueryParam("after") Integer after,
+                        @QueryParam("limit") Integer limit,
+                        @QueryParam("parent") Integer parentId,
+                        @QueryParam("visible") Boolean visible,
+                        @QueryParam("stream") boolean stream,
+                        @QueryParam("ids") String ids,
+                        @Context UriInfo uriInfo,
+                        @Context HttpHeaders headers,
+                        @Context Request request) throws Exception {
+        if (stream) {
+            return Response
+                    .ok(exporter.json(), MediaType.APPLICATION_JSON_TYPE)
+                    .build();
+        }
+        if (ids != null) {
+            return byIds(ids);
+        }
+        if (after != null || limit != null || parentId != null || visible != null) {
+            return page(after, limit, parentId, visible, uriInfo);
+        }
+
+        MediaType type = negotiate(headers);
+        return cachedView(view("all", type), type, headers, request, () -> {
+            Collection<Category> categories = em.createNamedQuery("Category.findAll", Category.class)
+                    .getResultList();
+            return ConfigureJacksonProvider.mapperFor(type).writeValueAsBytes(categories);
+        });
+    }
+
+    @GET
+    @Produces(MediaTypes.APPLICATION_NDJSON)
+    public Response export() {
+        return Response
+                .ok(exporter.ndjson())
+                .build();
+    }
+
+    /**
+     * Server-Sent Events stream of committed creates, updates and deletes, see {@link CategoryChangeFeed}.
+     */
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Path("/changes")
+    public void changes(@Context SseEventSink sink,
+                        @Context Sse sse,
+                        @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
+        feed.subscribe(sink, sse, lastEventId);
+    }
+
+    /**
+     * Every category named in a comma separated list of ids, in id order, read with one query.
+     * Ids that don't exist are left out of the result.
+     */
+    private Response byIds(String ids) {
+        Set<Integer> wanted = new TreeSet<>();
+        for (String id : ids.split(",")) {
+            if (id.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                wanted.add(Integer.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                return Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity("ids must be a comma separated list of category ids.")
+                        .build();
+            }
+        }
+        if (wanted.size() > MAX_PAGE_SIZE) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("No more than " + MAX_PAGE_SIZE + " ids can be requested at once.")
+                    .build();
+        }
+        if (wanted.isEmpty()) {
+            return Response
+                    .ok(Collections.emptyList())
+                    .build();
+        }
+
+        return Response
+                .ok(em.createNamedQuery("Category.findByIds", Category.class)
+                            .setParameter("ids", wanted)
+                            .getResultList())
+                .build();
+    }
+
+    /**
+     * Keyset page ordered by id. Ids come from a sequence, so rows inserted while a client
+     * is paging land after its cursor and never shift rows it has yet to see.
+     */
+    private Response page(Integer after, Integer limit, Integer parentId, Boolean visible, UriInfo uriInfo) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        StringBuilder jpql = new StringBuilder("SELECT c FROM Category c WHERE 1 = 1");
+        if (after != null) {
+            jpql.append(" AND c.id > :after");
+        }
+        if (parentId != null) {
+            jpql.append(" AND c.parent.id = :parent");
+        }
+        if (visible != null) {
+            jpql.append(" AND c.visible = :visible");
+        }
+        jpql.append(" ORDER BY c.id");
+
+        TypedQuery<Category> query = em.createQuery(jpql.toString(), Category.class);
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        if (parentId != null) {
+            query.setParameter("parent", parentId);
+        }
+        if (visible != null) {
+            query.setParameter("visible", visible);
+        }
+
+        // One extra row tells us whether there is a next page without a COUNT.
+        List<Category> categories = query
+                .setMaxResults(pageSize + 1)
                 .getResultList();
+
+        Response.ResponseBuilder builder;
+        if (categories.size() > pageSize) {
+            categories = categories.subList(0, pageSize);
+            Integer cursor = categories.get(pageSize - 1).getId();
+            builder = Response.ok(categories)
+                    .header("X-Next-Cursor", cursor)
+                    .link(uriInfo.getRequestUriBuilder()
+                                  .replaceQueryParam("after", cursor)
+                                  .replaceQueryParam("limit", pageSize)
+                                  .build(), "next");
+        } else {
+            builder = Response.ok(categories);
+        }
+        return builder.build();
     }
 
     @GET
     @Path("/tree")
-    @Produces(MediaType.APPLICATION_JSON)
-    public CategoryTree tree() throws Exception {
-        return em.find(CategoryTree.class, 1);
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    public Response tree(@Context HttpHeaders headers, @Context Request request) throws Exception {
+        MediaType type = negotiate(headers);
+        return cachedView(view("tree", type), type, headers, request, () -> {
+            CategorySnapshot snapshot = cache.snapshot(treeLoader::loadSnapshot);
+            int root = snapshot.root();
+            return root < 0 ? null : snapshot.write(ConfigureJacksonProvider.mapperFor(type), root, Integer.MAX_VALUE);
+        });
+    }
+
+    /**
+     * {@link CompressionInterceptor} adds the coding to the tag of a body it compresses, so the client may
+     * hold either the plain tag or the one for the coding it accepts.
+     */
+    private static Response.ResponseBuilder evaluatePreconditions(Request request, HttpHeaders headers, EntityTag tag) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        String encoding = Compression.negotiate(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (notModified == null && encoding != null) {
+            notModified = request.evaluatePreconditions(Compression.tag(tag, encoding));
+        }
+        return notModified;
+    }
+
+    /**
+     * Serves the cached bytes of a view, or 204 if there are none. When the client accepts compression
+     * and the view is big enough, the compressed bytes are cached and served instead, so they are only
+     * compressed once per change. Each coding gets its own tag, as it is a different representation.
+     */
+    private Response cachedView(String view, MediaType type, HttpHeaders headers, Request request,
+                                Callable<byte[]> loader) throws Exception {
+        String encoding = Compression.negotiate(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+
+        // Read the tag before the bytes, a concurrent write can only make the body newer than its tag.
+        EntityTag tag = cache.tag(view);
+        if (encoding != null) {
+            tag = Compression.tag(tag, encoding);
+        }
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        byte[] body = cache.view(view, loader);
+        if (body == null) {
+            return Response
+                    .noContent()
+                    .build();
+        }
+
+        Response.ResponseBuilder builder = Response
+                .ok()
+                .type(type)
+                .tag(tag);
+        if (encoding != null && body.length > Compression.THRESHOLD) {
+            byte[] compressed = cache.view(view + "-" + encoding, () -> {
+                byte[] plain = cache.view(view, loader);
+                return plain == null ? null : Compression.encode(encoding, plain);
+            });
+            if (compressed != null) {
+                body = compressed;
+                builder.header(HttpHeaders.CONTENT_ENCODING, encoding);
+            }
+        }
+        return builder
+                .entity(body)
+                .build();
+    }
+
+    @GET
+    @Path("/{categoryId}/tree")
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    public Response subtree(@PathParam("categoryId") Integer categoryId,
+                            @QueryParam("depth") Integer depth,
+                            @Context HttpHeaders headers,
+                            @Context Request request) throws Exception {
+        if (depth != null && depth < 0) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("depth must not be negative.")
+                    .build();
+        }
+
+        MediaType type = negotiate(headers);
+        EntityTag tag = cache.tag(view("tree-" + categoryId + "-" + depth, type));
+        Response.ResponseBuilder notModified = evaluatePreconditions(request, headers, tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        int levels = depth == null ? Integer.MAX_VALUE : depth;
+        CategorySnapshot snapshot = cache.builtSnapshot();
+        Object body;
+        if (snapshot != null) {
+            // Any subtree is a contiguous range of the snapshot, so it's written without touching the database.
+            int root = categoryId == null ? -1 : snapshot.indexOf(categoryId);
+            body = root < 0 ? null : snapshot.write(ConfigureJacksonProvider.mapperFor(type), root, levels);
+        } else {
+            // Every write drops the snapshot. Rebuilding the whole table for one subtree costs far more
+            // than the prefix scan, so that's left to the next /tree.
+            body = treeLoader.load(categoryId, levels);
+        }
+        if (body == null) {
+            return Response
+                    .status(Response.Status.NOT_FOUND)
+                    .entity("Category with id of " + categoryId + " does not exist.")
+                    .build();
+        }
+        return Response
+                .ok(body, type)
+                .tag(tag)
+                .build();
     }
 
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
     @Transactional
     public Response create(Category category) throws Exception {
         if (category.getId() != null) {
@@ -60,12 +359,15 @@ public class CategoryResource {
 
         Category parent;
         if ((parent = category.getParent()) != null && parent.getId() != null) {
-            category.setParent(get(parent.getId()));
+            parent = find(parent.getId());
+            category.setParent(parent);
         }
+        category.setPath(parent == null ? CategoryPaths.ROOT : CategoryPaths.childPath(parent.getPath(), parent.getId()));
 
         try {
             em.persist(category);
             em.flush();
+            changes.fire(CategoryChangeEvent.created(category));
         } catch (ConstraintViolationException cve) {
             return Response
                     .status(Response.Status.BAD_REQUEST)
@@ -82,13 +384,251 @@ public class CategoryResource {
                 .build();
     }
 
-    @GET
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    public Response batch(List<CategoryBatchItem> items) throws Exception {
+        if (items == null || items.isEmpty()) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("Batch must contain at least one item.")
+                    .build();
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("Batch may contain at most " + MAX_BATCH_SIZE + " items.")
+                    .build();
+        }
+
+        try {
+            return Response
+                    .ok(batchWriter.write(items))
+                    .build();
+        } catch (Exception e) {
+            return Response
+                    .serverError()
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    @POST
+    @Path("/import")
+    @Consumes({MediaTypes.TEXT_CSV, MediaTypes.APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importCategories(InputStream body, @Context HttpHeaders headers) throws Exception {
+        try {
+            Iterator<CategoryRecord> records;
+            if (MediaType.valueOf(MediaTypes.TEXT_CSV).isCompatible(headers.getMediaType())) {
+                records = new CategoryCsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+            } else {
+                records = new CategoryNdjsonReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+            }
+
+            return Response
+                    .ok(importer.load(records))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (IllegalStateException e) {
+            return Response
+                    .status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            return Response
+                    .serverError()
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Generates a synthetic hierarchy, shaped by the query, under an existing category and loads it
+     * like an import, see {@link CategoryGenerator}.
+     */
+    @POST
+    @Path("/generate")
     @Produces(MediaType.APPLICATION_JSON)
+    public Response generate(@BeanParam CategoryGeneratorSettings settings) {
+        try {
+            return Response
+                    .ok(importer.generate(settings))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (IllegalStateException e) {
+            return Response
+                    .status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (Exception e) {
+            return Response
+                    .serverError()
+                    .entity(e.getMessage())
+                    .build();
+        }
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
     @Path("/{categoryId}")
-    public Category get(@PathParam("categoryId") Integer categoryId) {
+    public Response get(@PathParam("categoryId") Integer categoryId,
+                        @QueryParam("expand") String expand,
+                        @Context HttpHeaders headers,
+                        @Context Request request) throws Exception {
+        MediaType type = negotiate(headers);
+        if (expand != null) {
+            return expanded(categoryId, expand, type);
+        }
+
+        // Validate against the version column alone so a matching poll never loads the entity.
+        List<Integer> versions = em.createNamedQuery("Category.findVersion", Integer.class)
+                .setParameter("id", categoryId)
+                .getResultList();
+        if (versions.isEmpty()) {
+            return Response
+                    .noContent()
+                    .build();
+        }
+
+        Response.ResponseBuilder notModified = evaluatePreconditions(request, headers, entityTag(categoryId, versions.get(0), type));
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        Category category = find(categoryId);
+        if (category == null) {
+            return Response
+                    .noContent()
+                    .build();
+        }
+        return Response
+                .ok(category, type)
+                .tag(entityTag(categoryId, category.getVersion(), type))
+                .build();
+    }
+
+    /**
+     * Parents are lazy and written as ids, {@code expand=parent} or {@code expand=ancestors} writes
+     * them out in full. Everything written is loaded by a single query up front, since there is no
+     * persistence context left to load from once the entity is serialized.
+     */
+    private Response expanded(Integer categoryId, String expand, MediaType type) throws Exception {
+        Category category;
+        int levels;
+
+        if ("parent".equals(expand)) {
+            category = em.find(Category.class, categoryId,
+                               Collections.singletonMap("javax.persistence.fetchgraph", em.getEntityGraph("Category.parent")));
+            levels = 1;
+        } else if ("ancestors".equals(expand)) {
+            // Loaded together, each parent reference resolves to an instance from the same result.
+            List<Category> chain = em.createNamedQuery("Category.findAncestorsAndSelf", Category.class)
+                    .setParameter("id", categoryId)
+                    .getResultList();
+            category = chain.isEmpty() ? null : chain.get(chain.size() - 1);
+            levels = Integer.MAX_VALUE;
+        } else {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("expand must be parent or ancestors.")
+                    .build();
+        }
+
+        if (category == null) {
+            return Response
+                    .noContent()
+                    .build();
+        }
+        return Response
+                .ok(ConfigureJacksonProvider.mapperFor(type)
+                            .writer()
+                            .withAttribute(CategoryReferenceSerializer.EXPAND, levels)
+                            .writeValueAsBytes(category), type)
+                .build();
+    }
+
+    private Category find(Integer categoryId) {
         return em.find(Category.class, categoryId);
     }
 
+    /**
+     * Each encoding of a version is a different representation, so JSON keeps the plain tag and the
+     * binary formats add their subtype.
+     */
+    static EntityTag entityTag(Integer categoryId, Integer version, MediaType type) {
+        return new EntityTag(view(categoryId + "-" + version, type));
+    }
+
+    /**
+     * @return the first of JSON, CBOR or Smile the client accepts, by the client's order of preference.
+     */
+    static MediaType negotiate(HttpHeaders headers) {
+        for (MediaType accepted : headers.getAcceptableMediaTypes()) {
+            for (MediaType format : FORMATS) {
+                if (accepted.isCompatible(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+
+    static String view(String name, MediaType type) {
+        return MediaType.APPLICATION_JSON_TYPE.isCompatible(type) ? name : name + "-" + type.getSubtype();
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    @Path("/{categoryId}/ancestors")
+    public Response ancestors(@PathParam("categoryId") Integer categoryId) {
+        // The path of the category names every ancestor, so they are joined to it in one query,
+        // root first and the category itself last.
+        List<Category> chain = em.createNamedQuery("Category.findAncestorsAndSelf", Category.class)
+                .setParameter("id", categoryId)
+                .getResultList();
+        if (chain.isEmpty()) {
+            return Response
+                    .status(Response.Status.NOT_FOUND)
+                    .entity("Category with id of " + categoryId + " does not exist.")
+                    .build();
+        }
+
+        return Response
+                .ok(chain.subList(0, chain.size() - 1))
+                .build();
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    @Path("/{categoryId}/descendants")
+    public Response descendants(@PathParam("categoryId") Integer categoryId) {
+        String path = CategoryPaths.pathOf(em, categoryId);
+        if (path == null) {
+            return Response
+                    .status(Response.Status.NOT_FOUND)
+                    .entity("Category with id of " + categoryId + " does not exist.")
+                    .build();
+        }
+
+        List<Category> descendants = em.createNamedQuery("Category.findDescendants", Category.class)
+                .setParameter("prefix", CategoryPaths.childPath(path, categoryId) + "%")
+                .getResultList();
+
+        return Response
+                .ok(descendants)
+                .build();
+    }
+
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/{categoryId}")
@@ -97,6 +637,7 @@ public class CategoryResource {
         try {
             Category entity = em.find(Category.class, categoryId);
             em.remove(entity);
+            changes.fire(CategoryChangeEvent.deleted(entity));
         } catch (Exception e) {
             return Response
                     .serverError()
@@ -110,8 +651,8 @@ public class CategoryResource {
     }
 
     @PUT
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_CBOR, MediaTypes.APPLICATION_SMILE})
     @Path("/{categoryId}")
     @Transactional
     public Response update(@PathParam("categoryId") Integer categoryId, Category category) throws Exception {
@@ -126,13 +667,36 @@ public class CategoryResource {
             }
 
             Category parent;
+            String path = CategoryPaths.ROOT;
             if ((parent = category.getParent()) != null) {
                 if (parent.getId() != null && parent.getVersion() == null) {
-                    category.setParent(get(parent.getId()));
+                    category.setParent(find(parent.getId()));
+                }
+
+                String parentPath = CategoryPaths.pathOf(em, parent.getId());
+                if (parentPath == null) {
+                    return Response
+                            .status(Response.Status.BAD_REQUEST)
+                            .entity("Parent category with id of " + parent.getId() + " does not exist.")
+                            .build();
+                }
+                path = CategoryPaths.childPath(parentPath, parent.getId());
+                if (CategoryPaths.isCycle(categoryId, path)) {
+                    return Response
+                            .status(Response.Status.BAD_REQUEST)
+                            .entity("Category with id of " + categoryId + " can't be moved under itself.")
+                            .build();
                 }
             }
 
-            em.merge(category);
+            String oldPath = entity.getPath();
+            Map<String, Object> before = CategoryChangeEvent.fieldsOf(entity);
+            category.setPath(path);
+            Category merged = em.merge(category);
+            // Flushed here so the change event carries the version being written.
+            em.flush();
+            CategoryPaths.moveDescendants(em, categoryId, oldPath, path);
+            changes.fire(CategoryChangeEvent.updated(before, merged));
 
             return Response
                     .ok(category)
@@ -0,0 +1,438 @@
+package ejm.admin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Immutable copy of the whole category table laid out in primitive arrays, for serving the hierarchy
+ * without loading entities or building a graph of nodes.
+ *
+ * Categories are stored in depth first preorder, so a category's subtree is the index range from
+ * itself up to {@link #subtreeEnd(int)}, its first child directly follows it and each later child
+ * follows the end of the previous one's subtree. Parents are kept as indexes, ids are found through
+ * an open addressing table, strings are shared through one pool and times are held as longs. A lookup
+ * by id is O(1), children and ancestors O(k) in the number returned, a subtree O(k) in its size.
+ *
+ * Output matches {@link ejm.admin.model.CategoryNode}, field for field, in every format.
+ *
+ * @author Ken Finnigan
+ */
+public final class CategorySnapshot {
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final byte NULL_BOOLEAN = -1;
+
+    private final int size;
+
+    private final int[] ids;
+
+    private final int[] parents;
+
+    private final int[] subtreeEnds;
+
+    private final int[] childCounts;
+
+    private final int[] names;
+
+    private final int[] imagePaths;
+
+    private final byte[] visible;
+
+    private final long[] created;
+
+    private final long[] updated;
+
+    private final int[] versions;
+
+    private final String[] strings;
+
+    private final int[] slotIds;
+
+    private final int[] slotIndexes;
+
+    private CategorySnapshot(Builder builder) {
+        int n = builder.size;
+        this.size = n;
+
+        // Link rows to parents by row number, then walk them depth first to find the preorder.
+        IdTable byRow = new IdTable(builder.ids, n);
+        int[] parentRows = new int[n];
+        int[] childCountsByRow = new int[n];
+        for (int r = 0; r < n; r++) {
+            int parentId = builder.parentIds[r];
+            parentRows[r] = parentId == NULL_INT ? -1 : byRow.get(parentId);
+            if (parentRows[r] >= 0) {
+                childCountsByRow[parentRows[r]]++;
+            }
+        }
+        int[] firstChild = new int[n + 1];
+        for (int r = 0; r < n; r++) {
+            firstChild[r + 1] = firstChild[r] + childCountsByRow[r];
+        }
+        int[] childRows = new int[firstChild[n]];
+        int[] filled = Arrays.copyOf(firstChild, n);
+        for (int r = 0; r < n; r++) {
+            if (parentRows[r] >= 0) {
+                childRows[filled[parentRows[r]]++] = r;
+            }
+        }
+
+        int[] order = new int[n];
+        int[] indexOfRow = new int[n];
+        int[] ends = new int[n];
+        int[] stack = new int[Math.max(n, 1)];
+        int[] nextChild = new int[n];
+        int visited = 0;
+        for (int root = 0; root < n; root++) {
+            if (parentRows[root] >= 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            indexOfRow[root] = visited;
+            order[visited++] = root;
+            while (top > 0) {
+                int r = stack[top - 1];
+                if (nextChild[r] < childCountsByRow[r]) {
+                    int child = childRows[firstChild[r] + nextChild[r]++];
+                    indexOfRow[child] = visited;
+                    order[visited++] = child;
+                    stack[top++] = child;
+                } else {
+                    ends[indexOfRow[r]] = visited;
+                    top--;
+                }
+            }
+        }
+        if (visited != n) {
+            // Only rows caught in a parent cycle are never reached from a root.
+            throw new IllegalStateException((n - visited) + " categories are in a parent cycle");
+        }
+
+        ids = new int[n];
+        parents = new int[n];
+        childCounts = new int[n];
+        names = new int[n];
+        imagePaths = new int[n];
+        visible = new byte[n];
+        created = new long[n];
+        updated = new long[n];
+        versions = new int[n];
+        for (int i = 0; i < n; i++) {
+            int r = order[i];
+            ids[i] = builder.ids[r];
+            parents[i] = parentRows[r] < 0 ? -1 : indexOfRow[parentRows[r]];
+            childCounts[i] = childCountsByRow[r];
+            names[i] = builder.names[r];
+            imagePaths[i] = builder.imagePaths[r];
+            visible[i] = builder.visible[r];
+            created[i] = builder.created[r];
+            updated[i] = builder.updated[r];
+            versions[i] = builder.versions[r];
+        }
+        subtreeEnds = ends;
+        strings = builder.strings.keySet().toArray(new String[0]);
+        for (Map.Entry<String, Integer> entry : builder.strings.entrySet()) {
+            strings[entry.getValue()] = entry.getKey();
+        }
+
+        IdTable byIndex = new IdTable(ids, n);
+        slotIds = byIndex.keys;
+        slotIndexes = byIndex.values;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the index of the category with {@code id}, or -1 if there is none.
+     */
+    public int indexOf(int id) {
+        int mask = slotIds.length - 1;
+        for (int slot = IdTable.hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int index = slotIndexes[slot];
+            if (index < 0) {
+                return -1;
+            }
+            if (slotIds[slot] == id) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the top of the hierarchy, the category without a parent with the lowest id,
+     * or -1 if there are no categories.
+     */
+    public int root() {
+        int root = -1;
+        for (int i = 0; i < size; i = subtreeEnds[i]) {
+            if (root < 0 || ids[i] < ids[root]) {
+                root = i;
+            }
+        }
+        return root;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public String name(int index) {
+        return string(names[index]);
+    }
+
+    /**
+     * @return the index of the parent, or -1 for a category without one.
+     */
+    public int parent(int index) {
+        return parents[index];
+    }
+
+    public int childCount(int index) {
+        return childCounts[index];
+    }
+
+    /**
+     * @return the indexes of the children, in the order their rows were added to the {@link Builder}.
+     * {@link CategoryTreeLoader} adds them by id, so for a loaded snapshot that is id order.
+     */
+    public int[] children(int index) {
+        int[] children = new int[childCounts[index]];
+        for (int i = 0, child = index + 1; i < children.length; i++, child = subtreeEnds[child]) {
+            children[i] = child;
+        }
+        return children;
+    }
+
+    /**
+     * @return the indexes of every ancestor, root first.
+     */
+    public int[] ancestors(int index) {
+        int depth = 0;
+        for (int p = parents[index]; p >= 0; p = parents[p]) {
+            depth++;
+        }
+        int[] ancestors = new int[depth];
+        for (int p = parents[index]; p >= 0; p = parents[p]) {
+            ancestors[--depth] = p;
+        }
+        return ancestors;
+    }
+
+    /**
+     * @return one past the last index of the subtree under {@code index}; every index in between
+     * is a descendant.
+     */
+    public int subtreeEnd(int index) {
+        return subtreeEnds[index];
+    }
+
+    /**
+     * @param depth number of levels below {@code index} to include, {@code 0} writes the category alone
+     * @return the subtree under {@code index} encoded by {@code mapper}
+     */
+    public byte[] write(ObjectMapper mapper, int index, int depth) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(subtreeEnds[index] - index, 1 << 16) * 128);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            write(generator, index, depth);
+        }
+        return out.toByteArray();
+    }
+
+    private void write(JsonGenerator generator, int index, int depth) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", ids[index]);
+        generator.writeFieldName("name");
+        writeString(generator, names[index]);
+        generator.writeFieldName("visible");
+        if (visible[index] == NULL_BOOLEAN) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(visible[index] == 1);
+        }
+        generator.writeFieldName("imagePath");
+        writeString(generator, imagePaths[index]);
+        generator.writeFieldName("parent");
+        if (parents[index] < 0) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(ids[parents[index]]);
+        }
+
+        generator.writeArrayFieldStart("children");
+        if (depth > 0) {
+            for (int child = index + 1; child < subtreeEnds[index]; child = subtreeEnds[child]) {
+                write(generator, child, depth - 1);
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("created");
+        generator.writeObject(toLocalDateTime(created[index]));
+        generator.writeFieldName("updated");
+        generator.writeObject(toLocalDateTime(updated[index]));
+        generator.writeFieldName("version");
+        if (versions[index] == NULL_INT) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(versions[index]);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeString(JsonGenerator generator, int ref) throws IOException {
+        if (ref < 0) {
+            generator.writeNull();
+        } else {
+            generator.writeString(strings[ref]);
+        }
+    }
+
+    private String string(int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+
+    static long toLong(LocalDateTime time) {
+        return time == null ? NULL_TIME : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    static LocalDateTime toLocalDateTime(long time) {
+        return time == NULL_TIME
+                ? null
+                : LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L), (int) Math.floorMod(time, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Collects rows in any order; parents are linked up when the snapshot is built.
+     */
+    public static final class Builder {
+
+        private int size;
+
+        private int[] ids = new int[256];
+
+        private int[] parentIds = new int[256];
+
+        private int[] names = new int[256];
+
+        private int[] imagePaths = new int[256];
+
+        private byte[] visible = new byte[256];
+
+        private long[] created = new long[256];
+
+        private long[] updated = new long[256];
+
+        private int[] versions = new int[256];
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(int id, Integer parentId, String name, Boolean visible, String imagePath,
+                           LocalDateTime created, LocalDateTime updated, Integer version) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                parentIds = Arrays.copyOf(parentIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                imagePaths = Arrays.copyOf(imagePaths, capacity);
+                this.visible = Arrays.copyOf(this.visible, capacity);
+                this.created = Arrays.copyOf(this.created, capacity);
+                this.updated = Arrays.copyOf(this.updated, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            ids[size] = id;
+            parentIds[size] = parentId == null ? NULL_INT : parentId;
+            names[size] = intern(name);
+            imagePaths[size] = intern(imagePath);
+            this.visible[size] = visible == null ? NULL_BOOLEAN : (byte) (visible ? 1 : 0);
+            this.created[size] = toLong(created);
+            this.updated[size] = toLong(updated);
+            versions[size] = version == null ? NULL_INT : version;
+            size++;
+            return this;
+        }
+
+        public CategorySnapshot build() {
+            return new CategorySnapshot(this);
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer ref = strings.get(value);
+            if (ref == null) {
+                ref = strings.size();
+                strings.put(value, ref);
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * Open addressing map from id to position with linear probing, sized to stay at most half full.
+     */
+    private static final class IdTable {
+
+        final int[] keys;
+
+        final int[] values;
+
+        IdTable(int[] ids, int count) {
+            int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            int mask = capacity - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = hash(ids[i]) & mask;
+                while (values[slot] >= 0) {
+                    if (keys[slot] == ids[i]) {
+                        throw new IllegalStateException("Duplicate category id " + ids[i]);
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = ids[i];
+                values[slot] = i;
+            }
+        }
+
+        int get(int id) {
+            int mask = keys.length - 1;
+            for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+                if (values[slot] < 0) {
+                    return -1;
+                }
+                if (keys[slot] == id) {
+                    return values[slot];
+                }
+            }
+        }
+
+        static int hash(int id) {
+            // Ids are mostly sequential, spread them so neighbours don't cluster.
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ejm.admin;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import ejm.admin.model.CategoryNode;
+
+/**
+ * Builds the category hierarchy from a single scan of the category table.
+ *
+ * Loading {@link ejm.admin.model.CategoryTree} through the entity mapping issues a SELECT per
+ * node plus the parent chain of each; here every row comes back in one round-trip and is
+ * linked to its parent in memory.
+ *
+ * The rows go straight into a {@link CategorySnapshot} rather than entities or
+ * {@link CategoryNode}s, so the whole table fits in a fraction of the memory and any subtree
+ * is served from it without another query.
+ *
+ * Until a snapshot is built again after a write, subtrees are found with a prefix scan of the
+ * materialized path instead, limited to the requested depth by counting path segments, so only
+ * the rows that end up in the response are fetched.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class CategoryTreeLoader {
+
+    private static final String SELECT =
+            "SELECT id, name, visible, image_path, parent_id, created, updated, version";
+
+    @PersistenceContext(unitName = "AdminPU")
+    private EntityManager em;
+
+    /**
+     * @return every category, streamed from one scan straight into a snapshot without entities or nodes.
+     */
+    public CategorySnapshot loadSnapshot() {
+        CategorySnapshot.Builder builder = CategorySnapshot.builder();
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = em.createNativeQuery(SELECT + " FROM category ORDER BY id").getResultStream();
+        try (Stream<Object[]> scan = rows) {
+            // Rows are ordered by id, so children end up in id order under their parent.
+            scan.forEach(row -> builder.add(
+                    toInteger(row[0]),
+                    toInteger(row[4]),
+                    (String) row[1],
+                    (Boolean) row[2],
+                    (String) row[3],
+                    toLocalDateTime(row[5]),
+                    toLocalDateTime(row[6]),
+                    toInteger(row[7])));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param depth number of levels below the root to include, {@code 0} returns the root alone.
+     * @return the node with the given id with its descendants down to {@code depth} attached, or
+     * {@code null} if no such category exists.
+     */
+    public CategoryNode load(Integer rootId, int depth) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> roots = em.createNativeQuery(SELECT + ", path FROM category WHERE id = :id")
+                .setParameter("id", rootId)
+                .getResultList();
+        if (roots.isEmpty()) {
+            return null;
+        }
+
+        CategoryNode root = toNode(roots.get(0));
+        if (depth == 0) {
+            return root;
+        }
+
+        String rootPath = (String) roots.get(0)[8];
+        String sql = SELECT + " FROM category WHERE path LIKE :prefix";
+        if (depth != Integer.MAX_VALUE) {
+            // Each level adds one id, and one slash, to the path.
+            sql += " AND LENGTH(path) - LENGTH(REPLACE(path, '/', '')) <= :maxSlashes";
+        }
+        Query query = em.createNativeQuery(sql + " ORDER BY id")
+                .setParameter("prefix", CategoryPaths.childPath(rootPath, rootId) + "%");
+        if (depth != Integer.MAX_VALUE) {
+            query.setParameter("maxSlashes", CategoryPaths.depth(rootPath == null ? CategoryPaths.ROOT : rootPath) + 1 + depth);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        Map<Integer, CategoryNode> nodes = new HashMap<>(rows.size() * 4 / 3 + 2);
+        nodes.put(root.getId(), root);
+        for (Object[] row : rows) {
+            CategoryNode node = toNode(row);
+            nodes.put(node.getId(), node);
+        }
+        for (Object[] row : rows) {
+            CategoryNode parent = nodes.get(toInteger(row[4]));
+            if (parent != null) {
+                parent.addChild(nodes.get(toInteger(row[0])));
+            }
+        }
+
+        return root;
+    }
+
+    static CategoryNode toNode(Object[] row) {
+        return new CategoryNode(
+                toInteger(row[0]),
+                (String) row[1],
+                (Boolean) row[2],
+                (String) row[3],
+                toInteger(row[4]),
+                toLocalDateTime(row[5]),
+                toLocalDateTime(row[6]),
+                toInteger(row[7]));
+    }
+
+    static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    static LocalDateTime toLocalDateTime(Object value) {
+        return value == null ? null : ((Timestamp) value).toLocalDateTime();
+    }
+}
@@ -0,0 +1,95 @@
+package ejm.admin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * Content codings the admin service can apply to response bodies, gzip and deflate.
+ *
+ * Only bodies over {@link #THRESHOLD} bytes are worth compressing; below that the saving is lost to
+ * the extra header and the time spent. Brotli would compress JSON better still, but needs a native
+ * library the JDK doesn't have.
+ *
+ * @author Ken Finnigan
+ */
+public final class Compression {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    static final int THRESHOLD = Integer.getInteger("ejm.admin.compression.threshold", 1024);
+
+    private Compression() {
+    }
+
+    /**
+     * @return gzip or deflate, whichever the {@code Accept-Encoding} header allows, gzip first,
+     * or {@code null} if it allows neither.
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean gzip = false;
+        boolean deflate = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase();
+            if (isRefused(parts)) {
+                continue;
+            }
+            if (GZIP.equals(name) || "x-gzip".equals(name) || "*".equals(name)) {
+                gzip = true;
+            } else if (DEFLATE.equals(name)) {
+                deflate = true;
+            }
+        }
+        return gzip ? GZIP : deflate ? DEFLATE : null;
+    }
+
+    /**
+     * @return a stream that compresses into {@code target}. Finishing it doesn't close {@code target}.
+     */
+    public static DeflaterOutputStream wrap(String encoding, OutputStream target) throws IOException {
+        // Sync flush, so a flush of a streamed body reaches the client instead of waiting in the deflater.
+        return GZIP.equals(encoding)
+                ? new GZIPOutputStream(target, 8192, true)
+                : new DeflaterOutputStream(target, true);
+    }
+
+    public static byte[] encode(String encoding, byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (DeflaterOutputStream out = wrap(encoding, compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * @return the tag of the representation tagged {@code tag} once compressed with {@code encoding}.
+     * Each coding is a different representation, so it needs a tag of its own.
+     */
+    public static EntityTag tag(EntityTag tag, String encoding) {
+        return new EntityTag(tag.getValue() + "-" + encoding, tag.isWeak());
+    }
+
+    private static boolean isRefused(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
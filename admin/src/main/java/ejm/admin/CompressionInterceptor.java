@@ -0,0 +1,159 @@
+package ejm.admin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compresses response bodies larger than {@link Compression#THRESHOLD} with gzip or deflate, as the
+ * request's {@code Accept-Encoding} allows.
+ *
+ * The size of most bodies isn't known up front, so output is held back until it passes the threshold.
+ * Only then are the {@code Content-Encoding} header set, the coding added to any {@code ETag}, and the
+ * held bytes compressed; a body that ends first is written as is. Responses that already carry a {@code Content-Encoding}, such as cached views
+ * compressed ahead of time, and event streams are passed through.
+ *
+ * @author Ken Finnigan
+ */
+@Provider
+public class CompressionInterceptor implements WriterInterceptor {
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+        VaryFilter.add(headers, HttpHeaders.ACCEPT_ENCODING);
+
+        String encoding = Compression.negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream out = new ThresholdOutputStream(context.getOutputStream(), encoding, headers);
+        context.setOutputStream(out);
+        context.proceed();
+        out.finish();
+    }
+
+    static final class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream target;
+
+        private final String encoding;
+
+        private final MultivaluedMap<String, Object> headers;
+
+        private ByteArrayOutputStream held = new ByteArrayOutputStream(Compression.THRESHOLD);
+
+        private OutputStream compressor;
+
+        private boolean finished;
+
+        ThresholdOutputStream(OutputStream target, String encoding, MultivaluedMap<String, Object> headers) {
+            this.target = target;
+            this.encoding = encoding;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressor == null && held.size() + len > Compression.THRESHOLD) {
+                // Nothing has reached the target yet, so the headers can still change.
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                Object tag = headers.getFirst(HttpHeaders.ETAG);
+                if (tag != null) {
+                    EntityTag plain = tag instanceof EntityTag ? (EntityTag) tag : EntityTag.valueOf(tag.toString());
+                    headers.putSingle(HttpHeaders.ETAG, Compression.tag(plain, encoding));
+                }
+                compressor = Compression.wrap(encoding, new Unclosable(target));
+                held.writeTo(compressor);
+                held = null;
+            }
+            if (compressor != null) {
+                compressor.write(b, off, len);
+            } else {
+                held.write(b, off, len);
+            }
+        }
+
+        /**
+         * Until the threshold is passed there's nothing to flush; the body may still turn out small.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compressor != null) {
+                compressor.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (compressor != null) {
+                // Writes the trailer and frees the deflater, but leaves the target to the container.
+                compressor.close();
+            } else {
+                held.writeTo(target);
+            }
+            target.flush();
+        }
+    }
+
+    private static final class Unclosable extends OutputStream {
+
+        private final OutputStream target;
+
+        Unclosable(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.flush();
+        }
+    }
+}
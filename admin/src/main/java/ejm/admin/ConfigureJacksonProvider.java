@@ -1,9 +1,12 @@
 package ejm.admin;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 /**
@@ -12,11 +15,36 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 @Provider
 public class ConfigureJacksonProvider implements ContextResolver<ObjectMapper> {
 
-    private final ObjectMapper mapper = new ObjectMapper()
+    /**
+     * Shared with code that encodes responses ahead of time, so pre-serialized bytes
+     * match what the JAX-RS provider would have written.
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule());
 
+    static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory())
+            .registerModule(new JavaTimeModule());
+
+    static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory())
+            .registerModule(new JavaTimeModule());
+
+    /**
+     * @return the mapper for a JSON, CBOR or Smile media type, JSON for anything else.
+     */
+    static ObjectMapper mapperFor(MediaType type) {
+        if (type != null) {
+            if (type.isCompatible(MediaTypes.APPLICATION_CBOR_TYPE)) {
+                return CBOR_MAPPER;
+            }
+            if (type.isCompatible(MediaTypes.APPLICATION_SMILE_TYPE)) {
+                return SMILE_MAPPER;
+            }
+        }
+        return MAPPER;
+    }
+
     @Override
     public ObjectMapper getContext(Class<?> type) {
-        return mapper;
+        return MAPPER;
     }
 }
@@ -0,0 +1,35 @@
+package ejm.admin;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types served by the admin service that {@link MediaType} doesn't define.
+ *
+ * @author Ken Finnigan
+ */
+public final class MediaTypes {
+
+    /**
+     * Newline delimited JSON, one category per line.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    public static final String TEXT_CSV = "text/csv";
+
+    /**
+     * Binary JSON, RFC 7049.
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    public static final MediaType APPLICATION_CBOR_TYPE = new MediaType("application", "cbor");
+
+    /**
+     * Jackson's binary JSON.
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE_TYPE = new MediaType("application", "x-jackson-smile");
+
+    private MediaTypes() {
+    }
+}
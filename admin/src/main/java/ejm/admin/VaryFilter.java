@@ -0,0 +1,67 @@
+package ejm.admin;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Sends {@code Vary: Accept} from resource methods that produce more than one media type, such as JSON,
+ * CBOR and Smile, so a shared cache doesn't hand one client's format to another.
+ *
+ * As a response filter it also covers 304 responses, which carry no body for an interceptor to see.
+ *
+ * @author Ken Finnigan
+ */
+@Provider
+public class VaryFilter implements ContainerResponseFilter {
+
+    static final String VARY = "Vary";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return;
+        }
+        Produces produces = method.getAnnotation(Produces.class);
+        if (produces != null && produces.value().length > 1) {
+            add(response.getHeaders(), HttpHeaders.ACCEPT);
+        }
+    }
+
+    /**
+     * Adds a header name to {@code Vary}, keeping whatever it already lists.
+     */
+    static void add(MultivaluedMap<String, Object> headers, String name) {
+        List<Object> values = headers.get(VARY);
+        if (values == null || values.isEmpty()) {
+            headers.putSingle(VARY, name);
+            return;
+        }
+        StringBuilder vary = new StringBuilder();
+        for (Object value : values) {
+            for (String listed : String.valueOf(value).split(",")) {
+                listed = listed.trim();
+                if (listed.equals("*") || listed.equalsIgnoreCase(name)) {
+                    return;
+                }
+                if (!listed.isEmpty()) {
+                    vary.append(vary.length() == 0 ? "" : ", ").append(listed);
+                }
+            }
+        }
+        headers.putSingle(VARY, vary.append(vary.length() == 0 ? "" : ", ").append(name).toString());
+    }
+}
@@ -0,0 +1,158 @@
+package ejm.admin.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Records every request into the {@link RouteMetrics} of the resource method it matched.
+ *
+ * The clock starts once the request is matched. Responses without a body, HEAD requests and event streams that stay
+ * open, finish in the response filter; the rest finish after their body is written, so the time taken
+ * to serialize it counts too. The interceptor runs ahead of compression, so sizes are bytes on the wire.
+ * A request that fails with an exception no mapper handles skips both, and is finished as a 500 by
+ * {@link UnfinishedRequestFilter} instead, so none is left in flight.
+ *
+ * JDBC work is counted by {@link SqlStatistics} from the time a request is matched. With
+ * {@code -Dejm.admin.debug.sql=true} the count so far is also sent in an {@code X-Debug-SQL} header,
+ * which can't include SQL run while a streamed body is written.
+ *
+ * Recording itself only touches atomics that already exist. The byte counter is reused per thread, as a
+ * body is always written by one thread from start to finish.
+ *
+ * @author Ken Finnigan
+ */
+@Provider
+@ApplicationScoped
+@Priority(Priorities.ENTITY_CODER)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final String START = MetricsFilter.class.getName() + ".start";
+
+    static final String ROUTE = MetricsFilter.class.getName() + ".route";
+
+    static final String RESPONDED = MetricsFilter.class.getName() + ".responded";
+
+    static final String DEBUG_SQL_HEADER = "X-Debug-SQL";
+
+    /**
+     * Whether responses carry the {@code X-Debug-SQL} header, off unless {@code ejm.admin.debug.sql} is true.
+     */
+    static final boolean DEBUG_SQL = Boolean.getBoolean("ejm.admin.debug.sql");
+
+    private static final ThreadLocal<CountingOutputStream> COUNTERS = ThreadLocal.withInitial(CountingOutputStream::new);
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        RouteMetrics route = registry.route(resourceInfo.getResourceClass(), resourceInfo.getResourceMethod());
+        route.started();
+        request.setProperty(ROUTE, route);
+        request.setProperty(START, System.nanoTime());
+        SqlStatistics.current().reset();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        RouteMetrics route = (RouteMetrics) request.getProperty(ROUTE);
+        Long start = (Long) request.getProperty(START);
+        if (route == null || start == null) {
+            // Never matched, or failed before the request filter ran.
+            registry.route(null, null).responded(response.getStatus());
+            return;
+        }
+        route.responded(response.getStatus());
+        request.setProperty(RESPONDED, Boolean.TRUE);
+        if (DEBUG_SQL) {
+            response.getHeaders().putSingle(DEBUG_SQL_HEADER, SqlStatistics.current().describe());
+        }
+        if (!response.hasEntity()
+                || HttpMethod.HEAD.equals(request.getMethod())
+                || MediaType.SERVER_SENT_EVENTS_TYPE.isCompatible(response.getMediaType())) {
+            request.removeProperty(START);
+            route.finished(start, 0, SqlStatistics.current());
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        RouteMetrics route = (RouteMetrics) context.getProperty(ROUTE);
+        Long start = (Long) context.getProperty(START);
+        if (route == null || start == null) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(START);
+
+        CountingOutputStream counter = COUNTERS.get();
+        OutputStream target = context.getOutputStream();
+        counter.reset(target);
+        context.setOutputStream(counter);
+        try {
+            context.proceed();
+        } finally {
+            long bytes = counter.count();
+            counter.reset(null);
+            context.setOutputStream(target);
+            route.finished(start, bytes, SqlStatistics.current());
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private OutputStream target;
+
+        private long count;
+
+        void reset(OutputStream target) {
+            this.target = target;
+            this.count = 0;
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+}
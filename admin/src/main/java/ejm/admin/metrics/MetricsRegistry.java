@@ -0,0 +1,88 @@
+package ejm.admin.metrics;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+
+/**
+ * Holds the {@link RouteMetrics} of every resource method that has been called.
+ *
+ * Each method's route is named once, from its HTTP method and {@code @Path} templates, on its first
+ * request. After that finding a route is a lock-free map read.
+ *
+ * @author Ken Finnigan
+ */
+@ApplicationScoped
+public class MetricsRegistry {
+
+    /**
+     * Requests that matched no resource method, which only have their statuses counted.
+     */
+    static final String UNMATCHED = "UNMATCHED";
+
+    private final Map<Method, RouteMetrics> byMethod = new ConcurrentHashMap<>();
+
+    private final Map<String, RouteMetrics> byRoute = new ConcurrentHashMap<>();
+
+    private final RouteMetrics unmatched = route(UNMATCHED);
+
+    public RouteMetrics route(Class<?> resourceClass, Method method) {
+        if (method == null) {
+            return unmatched;
+        }
+        RouteMetrics metrics = byMethod.get(method);
+        if (metrics == null) {
+            metrics = byMethod.computeIfAbsent(method, m -> route(routeName(resourceClass, m)));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return every route recorded so far, by name.
+     */
+    public List<RouteMetrics> routes() {
+        List<RouteMetrics> routes = new ArrayList<>(byRoute.values());
+        routes.sort(Comparator.comparing(RouteMetrics::route));
+        return routes;
+    }
+
+    private RouteMetrics route(String name) {
+        return byRoute.computeIfAbsent(name, RouteMetrics::new);
+    }
+
+    static String routeName(Class<?> resourceClass, Method method) {
+        String verb = "ANY";
+        for (Annotation annotation : method.getAnnotations()) {
+            HttpMethod httpMethod = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (httpMethod != null) {
+                verb = httpMethod.value();
+                break;
+            }
+        }
+
+        StringBuilder path = new StringBuilder();
+        Class<?> type = resourceClass != null ? resourceClass : method.getDeclaringClass();
+        append(path, type.getAnnotation(Path.class));
+        append(path, method.getAnnotation(Path.class));
+        return verb + " " + (path.length() == 0 ? "/" : path.toString());
+    }
+
+    private static void append(StringBuilder path, Path annotation) {
+        if (annotation == null) {
+            return;
+        }
+        String value = annotation.value();
+        if (!value.startsWith("/")) {
+            path.append('/');
+        }
+        path.append(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+    }
+}
@@ -0,0 +1,116 @@
+package ejm.admin.metrics;
+
+import java.util.List;
+import java.util.Locale;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Exposes the recorded {@link RouteMetrics} in the Prometheus text format, version 0.0.4.
+ *
+ * Latencies and response sizes are summaries with the 0.5, 0.9, 0.99 and 0.999 quantiles taken since
+ * startup; rates are left to Prometheus, from {@code _count} and {@code _sum}.
+ *
+ * @author Ken Finnigan
+ */
+@Path("/metrics")
+@ApplicationScoped
+public class MetricsResource {
+
+    static final String TEXT_FORMAT = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    @Inject
+    private MetricsRegistry registry;
+
+    @GET
+    @Produces(TEXT_FORMAT)
+    public String scrape() {
+        List<RouteMetrics> routes = registry.routes();
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "http_server_requests_total", "counter", "Responses sent, by route and status.");
+        for (RouteMetrics route : routes) {
+            for (int status = 0; status < RouteMetrics.MAX_STATUS; status++) {
+                long count = route.responses(status);
+                if (count > 0) {
+                    out.append("http_server_requests_total{route=\"").append(escape(route.route()))
+                            .append("\",status=\"").append(status).append("\"} ").append(count).append('\n');
+                }
+            }
+        }
+
+        header(out, "http_server_requests_in_flight", "gauge", "Requests being handled, by route.");
+        for (RouteMetrics route : routes) {
+            sample(out, "http_server_requests_in_flight", route, null, route.inFlight());
+        }
+
+        header(out, "http_server_request_duration_seconds", "summary", "Time from matching a request to writing its response.");
+        for (RouteMetrics route : routes) {
+            summary(out, "http_server_request_duration_seconds", route, route.latency().snapshot(), NANOS_PER_SECOND);
+        }
+
+        header(out, "http_server_response_size_bytes", "summary", "Response body sizes as sent.");
+        for (RouteMetrics route : routes) {
+            summary(out, "http_server_response_size_bytes", route, route.responseSize().snapshot(), 1);
+        }
+
+        header(out, "db_statements_per_request", "summary", "JDBC statements executed while handling a request.");
+        for (RouteMetrics route : routes) {
+            summary(out, "db_statements_per_request", route, route.sqlStatements().snapshot(), 1);
+        }
+
+        header(out, "db_entities_loaded_per_request", "summary", "Entities loaded while handling a request.");
+        for (RouteMetrics route : routes) {
+            summary(out, "db_entities_loaded_per_request", route, route.sqlEntities().snapshot(), 1);
+        }
+
+        header(out, "db_time_seconds", "summary", "Time spent executing JDBC statements per request.");
+        for (RouteMetrics route : routes) {
+            summary(out, "db_time_seconds", route, route.sqlTime().snapshot(), NANOS_PER_SECOND);
+        }
+        return out.toString();
+    }
+
+    static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, RouteMetrics route, Histogram.Snapshot snapshot, double unit) {
+        if (snapshot.count() == 0) {
+            return;
+        }
+        for (double quantile : QUANTILES) {
+            sample(out, name, route, quantile, snapshot.quantile(quantile) / unit);
+        }
+        sample(out, name + "_sum", route, null, snapshot.sum() / unit);
+        sample(out, name + "_count", route, null, snapshot.count());
+    }
+
+    private static void sample(StringBuilder out, String name, RouteMetrics route, Double quantile, double value) {
+        out.append(name).append("{route=\"").append(escape(route.route())).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(format(value)).append('\n');
+    }
+
+    static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
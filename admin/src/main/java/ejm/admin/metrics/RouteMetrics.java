@@ -0,0 +1,103 @@
+package ejm.admin.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Everything recorded for one route, a resource method such as {@code GET /category/{categoryId}}.
+ *
+ * @author Ken Finnigan
+ */
+public final class RouteMetrics {
+
+    static final int MAX_STATUS = 600;
+
+    private final String route;
+
+    private final Histogram latency = new Histogram();
+
+    private final Histogram responseSize = new Histogram();
+
+    private final Histogram sqlStatements = new Histogram();
+
+    private final Histogram sqlEntities = new Histogram();
+
+    private final Histogram sqlTime = new Histogram();
+
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    RouteMetrics(String route) {
+        this.route = route;
+    }
+
+    public String route() {
+        return route;
+    }
+
+    /**
+     * Response times in nanoseconds, from the request being matched to its body being written.
+     */
+    public Histogram latency() {
+        return latency;
+    }
+
+    /**
+     * Response bodies in bytes, as sent, so after any compression.
+     */
+    public Histogram responseSize() {
+        return responseSize;
+    }
+
+    /**
+     * JDBC statements executed per request.
+     */
+    public Histogram sqlStatements() {
+        return sqlStatements;
+    }
+
+    /**
+     * Entities loaded per request.
+     */
+    public Histogram sqlEntities() {
+        return sqlEntities;
+    }
+
+    /**
+     * Nanoseconds spent executing JDBC statements per request.
+     */
+    public Histogram sqlTime() {
+        return sqlTime;
+    }
+
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return how many responses had {@code status}.
+     */
+    public long responses(int status) {
+        return status >= 0 && status < MAX_STATUS ? statuses.get(status) : 0;
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void responded(int status) {
+        if (status >= 0 && status < MAX_STATUS) {
+            statuses.incrementAndGet(status);
+        }
+    }
+
+    void finished(long startNanos, long bytes, SqlStatistics sql) {
+        latency.record(System.nanoTime() - startNanos);
+        responseSize.record(bytes);
+        sqlStatements.record(sql.statements());
+        sqlEntities.record(sql.entities());
+        sqlTime.record(sql.nanos());
+        inFlight.decrementAndGet();
+    }
+}
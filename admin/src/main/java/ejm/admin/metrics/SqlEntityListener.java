@@ -0,0 +1,16 @@
+package ejm.admin.metrics;
+
+import javax.persistence.PostLoad;
+
+/**
+ * Counts entities loaded into the {@link SqlStatistics} of the current thread.
+ *
+ * @author Ken Finnigan
+ */
+public class SqlEntityListener {
+
+    @PostLoad
+    public void loaded(Object entity) {
+        SqlStatistics.current().loaded();
+    }
+}
@@ -0,0 +1,45 @@
+package ejm.admin.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds every JDBC statement and batch a Hibernate session runs to the {@link SqlStatistics} of the
+ * current thread.
+ *
+ * Hibernate creates one per session, as named by {@code hibernate.session.events.auto} in persistence.xml.
+ * SQL run through {@code Session.doWork} bypasses Hibernate's JDBC coordinator and isn't seen.
+ *
+ * @author Ken Finnigan
+ */
+public class SqlStatementListener extends BaseSessionEventListener {
+
+    private long statementStart = -1;
+
+    private long batchStart = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        if (statementStart >= 0) {
+            SqlStatistics.current().executed(1, System.nanoTime() - statementStart);
+            statementStart = -1;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        if (batchStart >= 0) {
+            SqlStatistics.current().executed(1, System.nanoTime() - batchStart);
+            batchStart = -1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ejm.admin.metrics;
+
+import java.util.Locale;
+
+/**
+ * JDBC work done on behalf of the request the current thread is handling: statements executed, entities
+ * loaded and time spent waiting on the database.
+ *
+ * {@link MetricsFilter} resets the counters when a request is matched and reads them when it finishes.
+ * The counters are per thread and reused, so counting costs no allocation.
+ *
+ * @author Ken Finnigan
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = ThreadLocal.withInitial(SqlStatistics::new);
+
+    private long statements;
+
+    private long entities;
+
+    private long nanos;
+
+    private SqlStatistics() {
+    }
+
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public long statements() {
+        return statements;
+    }
+
+    /**
+     * Entities materialized by Hibernate, whether from result set rows or the second-level cache.
+     */
+    public long entities() {
+        return entities;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    void reset() {
+        statements = 0;
+        entities = 0;
+        nanos = 0;
+    }
+
+    void executed(long statementCount, long elapsedNanos) {
+        statements += statementCount;
+        nanos += elapsedNanos;
+    }
+
+    void loaded() {
+        entities++;
+    }
+
+    /**
+     * @return the value of the {@code X-Debug-SQL} header, such as {@code statements=3; entities=12; time=1.204ms}.
+     */
+    public String describe() {
+        return String.format(Locale.ROOT, "statements=%d; entities=%d; time=%.3fms", statements, entities, nanos / 1e6);
+    }
+}
@@ -0,0 +1,53 @@
+package ejm.admin.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Finishes the metrics of a matched request that {@link MetricsFilter} never got to finish.
+ *
+ * An exception no mapper handles leaves JAX-RS without running the response filter or writer interceptor,
+ * and is answered by the container instead. Those requests are counted here as a 500, so none is left in
+ * flight. Request properties are servlet request attributes, so the route and start time are still there.
+ * Requests that went asynchronous, such as event streams, are finished by {@link MetricsFilter}.
+ *
+ * @author Ken Finnigan
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class UnfinishedRequestFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig config) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            RouteMetrics route = (RouteMetrics) request.getAttribute(MetricsFilter.ROUTE);
+            Long start = (Long) request.getAttribute(MetricsFilter.START);
+            if (route != null && start != null && !request.isAsyncStarted()) {
+                request.removeAttribute(MetricsFilter.START);
+                if (request.getAttribute(MetricsFilter.RESPONDED) == null) {
+                    route.responded(failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : ((HttpServletResponse) response).getStatus());
+                }
+                route.finished(start, 0, SqlStatistics.current());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
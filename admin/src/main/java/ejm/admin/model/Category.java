@@ -3,15 +3,22 @@ package ejm.admin.model;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.Version;
@@ -19,23 +26,44 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import ejm.admin.metrics.SqlEntityListener;
+import org.hibernate.proxy.HibernateProxy;
 
 /**
  * @author Ken Finnigan
  */
 @Entity
-@Table(name = "category")
+@EntityListeners(SqlEntityListener.class)
+@Table(name = "category", indexes = {
+        @Index(name = "category_parent_idx", columnList = "parent_id"),
+        @Index(name = "category_path_idx", columnList = "path")
+})
 @NamedQueries({
-        @NamedQuery(name = "Category.findAll", query = "SELECT c from Category c")
+        @NamedQuery(name = "Category.findAll", query = "SELECT c from Category c",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
+        @NamedQuery(name = "Category.findVersion", query = "SELECT c.version from Category c WHERE c.id = :id",
+                hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")),
+        @NamedQuery(name = "Category.findPath", query = "SELECT c.path from Category c WHERE c.id = :id"),
+        @NamedQuery(name = "Category.findByIds", query = "SELECT c from Category c WHERE c.id IN :ids ORDER BY c.id"),
+        @NamedQuery(name = "Category.findAncestorsAndSelf",
+                query = "SELECT a from Category a, Category c WHERE c.id = :id " +
+                        "AND (a.id = c.id OR c.path LIKE CONCAT(a.path, CAST(a.id AS string), '/%')) ORDER BY LENGTH(a.path)"),
+        @NamedQuery(name = "Category.findDescendants", query = "SELECT c from Category c WHERE c.path LIKE :prefix ORDER BY c.path, c.id"),
+        @NamedQuery(name = "Category.movePaths",
+                query = "UPDATE Category c SET c.path = CONCAT(:newPrefix, SUBSTRING(c.path, :keepFrom)) WHERE c.path LIKE :oldPrefix")
 })
-@JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@Cacheable
+@NamedEntityGraph(name = "Category.parent", attributeNodes = @NamedAttributeNode("parent"))
+@JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id", resolver = CategoryIdResolver.class)
 public class Category {
 
     @Id
     @SequenceGenerator(
             name = "category_sequence",
-            allocationSize = 1,
+            allocationSize = 50,
             initialValue = 1020
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_sequence")
@@ -47,17 +75,27 @@ public class Category {
     @Column(name = "name", length = 50, nullable = false)
     protected String name;
 
+    @Size(max = 255)
     protected String header;
 
     protected Boolean visible;
 
+    @Size(max = 120)
     @Column(name = "image_path", length = 120)
     protected String imagePath;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
+    @JsonSerialize(using = CategoryReferenceSerializer.class)
     protected Category parent;
 
+    /**
+     * Ids of every ancestor, root first, such as {@code /0/1000/1001/}; a root has {@code /}.
+     */
+    @JsonIgnore
+    @Column(name = "path", length = 1000)
+    protected String path;
+
     protected LocalDateTime created = LocalDateTime.now();
 
     protected LocalDateTime updated;
@@ -109,6 +147,15 @@ public class Category {
         this.parent = parent;
     }
 
+    @JsonIgnore
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
     public LocalDateTime getCreated() {
         return created;
     }
@@ -135,7 +182,7 @@ public class Category {
                 Objects.equals(header, category.header) &&
                 Objects.equals(visible, category.visible) &&
                 Objects.equals(imagePath, category.imagePath) &&
-                Objects.equals(parent, category.parent) &&
+                Objects.equals(idOf(parent), idOf(category.parent)) &&
                 Objects.equals(created, category.created) &&
                 Objects.equals(updated, category.updated) &&
                 Objects.equals(version, category.version);
@@ -143,6 +190,19 @@ public class Category {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, header, visible, imagePath, parent, created, updated, version);
+        return Objects.hash(id, name, header, visible, imagePath, idOf(parent), created, updated, version);
+    }
+
+    /**
+     * @return the id of the category, taken from the proxy if it hasn't been loaded.
+     */
+    public static Integer idOf(Category category) {
+        if (category == null) {
+            return null;
+        }
+        if (category instanceof HibernateProxy) {
+            return (Integer) ((HibernateProxy) category).getHibernateLazyInitializer().getIdentifier();
+        }
+        return category.getId();
     }
 }
@@ -0,0 +1,93 @@
+package ejm.admin.model;
+
+/**
+ * One entry of a bulk create or update request.
+ *
+ * Items without an {@code id} are created. A client chosen {@code ref} lets other items in
+ * the same request point at it through {@code parentRef} before it has been assigned an id.
+ * Items with an {@code id} update that category, and only the properties that are set change.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryBatchItem {
+
+    private String ref;
+
+    private Integer id;
+
+    private String parentRef;
+
+    private Integer parentId;
+
+    private String name;
+
+    private String header;
+
+    private Boolean visible;
+
+    private String imagePath;
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getParentRef() {
+        return parentRef;
+    }
+
+    public void setParentRef(String parentRef) {
+        this.parentRef = parentRef;
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Integer parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Boolean getVisible() {
+        return visible;
+    }
+
+    public void setVisible(Boolean visible) {
+        this.visible = visible;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+}
@@ -0,0 +1,40 @@
+package ejm.admin.model;
+
+/**
+ * Outcome of a single {@link CategoryBatchItem}, returned in the same order as the request.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryBatchResult {
+
+    private final String ref;
+
+    private final Integer id;
+
+    private final int status;
+
+    private final String message;
+
+    public CategoryBatchResult(String ref, Integer id, int status, String message) {
+        this.ref = ref;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,220 @@
+package ejm.admin.model;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.QueryParam;
+
+/**
+ * Shape of a generated category hierarchy, read from the query of {@code POST /category/generate}
+ * or from {@code ejm.admin.generate.*} system properties at boot.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryGeneratorSettings {
+
+    public static final int MAX_COUNT = 10_000_000;
+
+    static final int MIN_NAME_LENGTH = 3;
+
+    static final int MAX_NAME_LENGTH = 50;
+
+    @QueryParam("seed")
+    @DefaultValue("1")
+    private long seed = 1;
+
+    @QueryParam("count")
+    @DefaultValue("100000")
+    private int count = 100000;
+
+    @QueryParam("depth")
+    @DefaultValue("6")
+    private int depth = 6;
+
+    @QueryParam("fanOutMin")
+    @DefaultValue("1")
+    private int fanOutMin = 1;
+
+    @QueryParam("fanOutMax")
+    @DefaultValue("20")
+    private int fanOutMax = 20;
+
+    @QueryParam("fanOutSkew")
+    @DefaultValue("2")
+    private double fanOutSkew = 2;
+
+    @QueryParam("nameLengthMin")
+    @DefaultValue("5")
+    private int nameLengthMin = 5;
+
+    @QueryParam("nameLengthMax")
+    @DefaultValue("30")
+    private int nameLengthMax = 30;
+
+    @QueryParam("visibleRatio")
+    @DefaultValue("0.9")
+    private double visibleRatio = 0.9;
+
+    @QueryParam("parent")
+    @DefaultValue("0")
+    private int parent = 0;
+
+    @QueryParam("firstId")
+    private Integer firstId;
+
+    /**
+     * @return settings from {@code ejm.admin.generate.*} system properties, with the same defaults
+     * as the query.
+     */
+    public static CategoryGeneratorSettings fromSystemProperties() {
+        CategoryGeneratorSettings settings = new CategoryGeneratorSettings();
+        settings.seed = Long.getLong("ejm.admin.generate.seed", 1);
+        settings.count = Integer.getInteger("ejm.admin.generate.count", 0);
+        settings.depth = Integer.getInteger("ejm.admin.generate.depth", 6);
+        settings.fanOutMin = Integer.getInteger("ejm.admin.generate.fanOutMin", 1);
+        settings.fanOutMax = Integer.getInteger("ejm.admin.generate.fanOutMax", 20);
+        settings.fanOutSkew = Double.parseDouble(System.getProperty("ejm.admin.generate.fanOutSkew", "2"));
+        settings.nameLengthMin = Integer.getInteger("ejm.admin.generate.nameLengthMin", 5);
+        settings.nameLengthMax = Integer.getInteger("ejm.admin.generate.nameLengthMax", 30);
+        settings.visibleRatio = Double.parseDouble(System.getProperty("ejm.admin.generate.visibleRatio", "0.9"));
+        settings.parent = Integer.getInteger("ejm.admin.generate.parent", 0);
+        settings.firstId = Integer.getInteger("ejm.admin.generate.firstId");
+        return settings;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the first setting out of range.
+     */
+    public void validate() {
+        if (count < 1 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_COUNT + ".");
+        }
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1.");
+        }
+        if (fanOutMin < 0 || fanOutMax < 1 || fanOutMin > fanOutMax) {
+            throw new IllegalArgumentException("fanOutMin and fanOutMax must satisfy 0 <= fanOutMin <= fanOutMax and fanOutMax >= 1.");
+        }
+        if (fanOutSkew <= 0) {
+            throw new IllegalArgumentException("fanOutSkew must be above 0.");
+        }
+        if (nameLengthMin < MIN_NAME_LENGTH || nameLengthMax > MAX_NAME_LENGTH || nameLengthMin > nameLengthMax) {
+            throw new IllegalArgumentException("Name lengths must be between " + MIN_NAME_LENGTH + " and " + MAX_NAME_LENGTH + ".");
+        }
+        if (visibleRatio < 0 || visibleRatio > 1) {
+            throw new IllegalArgumentException("visibleRatio must be between 0 and 1.");
+        }
+        if (parent < 0 || (firstId != null && firstId < 0)) {
+            throw new IllegalArgumentException("parent and firstId must not be negative.");
+        }
+    }
+
+    /**
+     * @return the seed all random choices are made from; the same settings always give the same hierarchy.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the most categories to generate; fewer if {@link #getDepth()} is reached first.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * @return levels of categories below {@link #getParent()}.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public int getFanOutMin() {
+        return fanOutMin;
+    }
+
+    public void setFanOutMin(int fanOutMin) {
+        this.fanOutMin = fanOutMin;
+    }
+
+    public int getFanOutMax() {
+        return fanOutMax;
+    }
+
+    public void setFanOutMax(int fanOutMax) {
+        this.fanOutMax = fanOutMax;
+    }
+
+    /**
+     * @return how strongly child counts lean towards {@link #getFanOutMin()}: 1 is uniform, 2 and up
+     * give mostly small categories with a few large ones, as real catalogs have.
+     */
+    public double getFanOutSkew() {
+        return fanOutSkew;
+    }
+
+    public void setFanOutSkew(double fanOutSkew) {
+        this.fanOutSkew = fanOutSkew;
+    }
+
+    public int getNameLengthMin() {
+        return nameLengthMin;
+    }
+
+    public void setNameLengthMin(int nameLengthMin) {
+        this.nameLengthMin = nameLengthMin;
+    }
+
+    public int getNameLengthMax() {
+        return nameLengthMax;
+    }
+
+    public void setNameLengthMax(int nameLengthMax) {
+        this.nameLengthMax = nameLengthMax;
+    }
+
+    /**
+     * @return the share of categories that are visible, between 0 and 1.
+     */
+    public double getVisibleRatio() {
+        return visibleRatio;
+    }
+
+    public void setVisibleRatio(double visibleRatio) {
+        this.visibleRatio = visibleRatio;
+    }
+
+    /**
+     * @return the existing category the generated hierarchy hangs from, Top by default.
+     */
+    public int getParent() {
+        return parent;
+    }
+
+    public void setParent(int parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return the id of the first generated category, the rest following on; {@code null} to start
+     * after both the highest id in use and the ids reserved for new categories.
+     */
+    public Integer getFirstId() {
+        return firstId;
+    }
+
+    public void setFirstId(Integer firstId) {
+        this.firstId = firstId;
+    }
+}
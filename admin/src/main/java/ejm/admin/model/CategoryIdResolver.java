@@ -0,0 +1,41 @@
+package ejm.admin.model;
+
+import java.util.HashMap;
+
+import com.fasterxml.jackson.annotation.ObjectIdGenerator;
+import com.fasterxml.jackson.annotation.ObjectIdResolver;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+
+/**
+ * Resolves a parent written as a bare id, by {@link CategoryReferenceSerializer}, to a
+ * {@link Category} carrying just that id when the document doesn't contain the parent itself.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryIdResolver extends SimpleObjectIdResolver {
+
+    @Override
+    public void bindItem(ObjectIdGenerator.IdKey id, Object pojo) {
+        // A parent may be referenced before it appears in full, keep the full one.
+        if (_items == null) {
+            _items = new HashMap<>();
+        }
+        _items.put(id, pojo);
+    }
+
+    @Override
+    public Object resolveId(ObjectIdGenerator.IdKey id) {
+        Object item = super.resolveId(id);
+        if (item == null && id.key instanceof Number) {
+            Category reference = new Category();
+            reference.id = ((Number) id.key).intValue();
+            return reference;
+        }
+        return item;
+    }
+
+    @Override
+    public ObjectIdResolver newForDeserialization(Object context) {
+        return new CategoryIdResolver();
+    }
+}
@@ -0,0 +1,68 @@
+package ejm.admin.model;
+
+/**
+ * Summary of a bulk import.
+ *
+ * {@code deferred} rows arrived before their parent and had their parent linked after every row
+ * was inserted; {@code orphaned} rows named a parent that never showed up and were left without one.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryImportReport {
+
+    private final long rows;
+
+    private final long inserted;
+
+    private final long duplicates;
+
+    private final long rejected;
+
+    private final long deferred;
+
+    private final long orphaned;
+
+    private final long millis;
+
+    public CategoryImportReport(long rows, long inserted, long duplicates, long rejected, long deferred, long orphaned, long millis) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.deferred = deferred;
+        this.orphaned = orphaned;
+        this.millis = millis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getDeferred() {
+        return deferred;
+    }
+
+    public long getOrphaned() {
+        return orphaned;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getRowsPerSecond() {
+        return millis == 0 ? rows : rows * 1000 / millis;
+    }
+}
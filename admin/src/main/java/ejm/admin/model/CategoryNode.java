@@ -0,0 +1,95 @@
+package ejm.admin.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Detached, read-only node of the category hierarchy.
+ *
+ * Serializes to the same JSON as {@link CategoryTree}, with the parent written as its id,
+ * but is assembled in memory rather than through the entity's EAGER children mapping.
+ *
+ * @author Ken Finnigan
+ */
+@JsonPropertyOrder({"id", "name", "visible", "imagePath", "parent", "children", "created", "updated", "version"})
+public class CategoryNode {
+
+    private final Integer id;
+
+    private final String name;
+
+    private final Boolean visible;
+
+    private final String imagePath;
+
+    private final Integer parent;
+
+    private final List<CategoryNode> children = new ArrayList<>();
+
+    private final LocalDateTime created;
+
+    private final LocalDateTime updated;
+
+    private final Integer version;
+
+    public CategoryNode(Integer id,
+                        String name,
+                        Boolean visible,
+                        String imagePath,
+                        Integer parent,
+                        LocalDateTime created,
+                        LocalDateTime updated,
+                        Integer version) {
+        this.id = id;
+        this.name = name;
+        this.visible = visible;
+        this.imagePath = imagePath;
+        this.parent = parent;
+        this.created = created;
+        this.updated = updated;
+        this.version = version;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Boolean getVisible() {
+        return visible;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public Integer getParent() {
+        return parent;
+    }
+
+    public List<CategoryNode> getChildren() {
+        return children;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public LocalDateTime getUpdated() {
+        return updated;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void addChild(CategoryNode child) {
+        children.add(child);
+    }
+}
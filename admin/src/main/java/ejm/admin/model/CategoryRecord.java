@@ -0,0 +1,86 @@
+package ejm.admin.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Flat row of the category table as read by the bulk import, with the parent as a plain id.
+ *
+ * Property names match the streaming export, so its NDJSON output can be imported as is.
+ *
+ * @author Ken Finnigan
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CategoryRecord {
+
+    private Integer id;
+
+    private String name;
+
+    private String header;
+
+    private Boolean visible;
+
+    private String imagePath;
+
+    private Integer parent;
+
+    private LocalDateTime created;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Boolean getVisible() {
+        return visible;
+    }
+
+    public void setVisible(Boolean visible) {
+        this.visible = visible;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public Integer getParent() {
+        return parent;
+    }
+
+    public void setParent(Integer parent) {
+        this.parent = parent;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+}
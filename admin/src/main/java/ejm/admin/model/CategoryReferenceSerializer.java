@@ -0,0 +1,42 @@
+package ejm.admin.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.hibernate.Hibernate;
+
+/**
+ * Writes {@code Category.parent} as its id, read from the lazy proxy without loading it.
+ *
+ * Callers can opt in to full parents by setting {@link #EXPAND} on the writer to the number of
+ * levels to write out, each of which has to be loadable from the current persistence context.
+ *
+ * @author Ken Finnigan
+ */
+public class CategoryReferenceSerializer extends StdSerializer<Category> {
+
+    public static final String EXPAND = "ejm.admin.expand";
+
+    public CategoryReferenceSerializer() {
+        super(Category.class);
+    }
+
+    @Override
+    public void serialize(Category value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Object expand = provider.getAttribute(EXPAND);
+        int levels = expand instanceof Integer ? (Integer) expand : 0;
+
+        if (levels > 0) {
+            provider.setAttribute(EXPAND, levels - 1);
+            try {
+                provider.defaultSerializeValue(Hibernate.unproxy(value), gen);
+            } finally {
+                provider.setAttribute(EXPAND, levels);
+            }
+        } else {
+            gen.writeNumber(Category.idOf(value));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ejm.admin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryCacheTest {
+
+    private static final int READERS = 8;
+
+    @Test
+    public void concurrentReadersShareOneBuild() throws Exception {
+        CategoryCache cache = new CategoryCache();
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch asked = new CountDownLatch(READERS);
+        Callable<byte[]> loader = () -> {
+            builds.incrementAndGet();
+            // Hold the build until every reader has asked, so they all find it in progress.
+            asked.await(5, TimeUnit.SECONDS);
+            return bytes("tree");
+        };
+
+        ExecutorService readers = Executors.newFixedThreadPool(READERS);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                results.add(readers.submit(() -> {
+                    asked.countDown();
+                    return cache.view("tree", loader);
+                }));
+            }
+            byte[] first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<byte[]> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        assertThat(builds.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateDuringBuildDropsItsResult() throws Exception {
+        CategoryCache cache = new CategoryCache();
+        EntityTag before = cache.tag("tree");
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> stale = reader.submit(() -> cache.view("tree", () -> {
+                building.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return bytes("stale");
+            }));
+            assertThat(building.await(5, TimeUnit.SECONDS)).isTrue();
+            cache.invalidate();
+            release.countDown();
+
+            // The reader that started the build asked before the write, so it may still be answered from it.
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(bytes("stale"));
+        } finally {
+            reader.shutdownNow();
+        }
+
+        AtomicInteger builds = new AtomicInteger();
+        byte[] fresh = cache.view("tree", () -> {
+            builds.incrementAndGet();
+            return bytes("fresh");
+        });
+        assertThat(fresh).isEqualTo(bytes("fresh"));
+        assertThat(builds.get()).isEqualTo(1);
+        assertThat(cache.tag("tree")).isNotEqualTo(before);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
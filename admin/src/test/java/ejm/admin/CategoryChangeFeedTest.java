@@ -0,0 +1,264 @@
+package ejm.admin;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryChangeFeedTest {
+
+    private final CategoryChangeFeed feed = new CategoryChangeFeed();
+
+    @Before
+    public void start() {
+        feed.start();
+    }
+
+    @After
+    public void stop() {
+        feed.stop();
+    }
+
+    @Test
+    public void sendsChangesInOrder() throws Exception {
+        RecordingSink sink = new RecordingSink(null);
+        feed.subscribe(sink, new RecordingSse(), null);
+
+        feed.onChange(change(1001));
+        feed.onChange(change(1002));
+        await(() -> sink.sent.size() == 2);
+
+        assertThat(sink.sent.get(0).getName()).isEqualTo("updated");
+        assertThat((String) sink.sent.get(0).getData()).isEqualTo("{\"id\":1001,\"version\":2,\"fields\":{}}");
+        assertThat(sink.sent.get(1).getId()).endsWith("-2");
+        assertThat(sink.isClosed()).isFalse();
+    }
+
+    @Test
+    public void replaysMissedChangesBeforeNewOnes() throws Exception {
+        RecordingSink first = new RecordingSink(null);
+        feed.subscribe(first, new RecordingSse(), null);
+        feed.onChange(change(1001));
+        feed.onChange(change(1002));
+        feed.onChange(change(1003));
+        await(() -> first.sent.size() == 3);
+
+        RecordingSink resumed = new RecordingSink(null);
+        feed.subscribe(resumed, new RecordingSse(), first.sent.get(0).getId());
+        feed.onChange(change(1004));
+        await(() -> resumed.sent.size() == 3);
+
+        assertThat((String) resumed.sent.get(0).getData()).contains("1002");
+        assertThat((String) resumed.sent.get(1).getData()).contains("1003");
+        assertThat((String) resumed.sent.get(2).getData()).contains("1004");
+    }
+
+    @Test
+    public void slowSubscriberIsSentOverflowAndDisconnected() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        RecordingSink sink = new RecordingSink(gate);
+        feed.subscribe(sink, new RecordingSse(), null);
+
+        // The sender is now stuck on the first change, so the rest pile up in the subscriber's buffer.
+        feed.onChange(change(1));
+        await(() -> sink.sent.size() == 1);
+        for (int i = 0; i <= CategoryChangeFeed.BUFFER; i++) {
+            feed.onChange(change(i + 2));
+        }
+        assertThat(feed.subscriberCount()).isEqualTo(1);
+
+        gate.complete(null);
+        await(sink::isClosed);
+
+        assertThat(sink.sent).hasSize(2);
+        assertThat(sink.sent.get(1).getName()).isEqualTo("overflow");
+        // No id, so the client's Last-Event-ID still resumes after the first change.
+        assertThat(sink.sent.get(1).getId()).isNull();
+        await(() -> feed.subscriberCount() == 0);
+    }
+
+    private static CategoryChangeEvent change(int id) {
+        return new CategoryChangeEvent(CategoryChangeEvent.Type.UPDATED, id, 2, Collections.emptyMap());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("time waited for condition").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Records events as they are sent; the first send waits on {@code gate} if there is one.
+     */
+    private static final class RecordingSink implements SseEventSink {
+
+        private final List<Event> sent = new CopyOnWriteArrayList<>();
+
+        private final CompletableFuture<Void> gate;
+
+        private volatile boolean closed;
+
+        RecordingSink(CompletableFuture<Void> gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            sent.add((Event) event);
+            return gate != null && sent.size() == 1 ? gate : CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class RecordingSse implements Sse {
+
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new Event();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Event implements OutboundSseEvent, OutboundSseEvent.Builder {
+
+        private String id;
+
+        private String name;
+
+        private MediaType mediaType;
+
+        private Object data;
+
+        @Override
+        public Event id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        @Override
+        public Event name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public Event reconnectDelay(long milliseconds) {
+            return this;
+        }
+
+        @Override
+        public Event mediaType(MediaType mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+        @Override
+        public Event comment(String comment) {
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Event data(Class type, Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Event data(GenericType type, Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public Event data(Object data) {
+            this.data = data;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent build() {
+            return this;
+        }
+
+        @Override
+        public Class<?> getType() {
+            return String.class;
+        }
+
+        @Override
+        public Type getGenericType() {
+            return String.class;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public Object getData() {
+            return data;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getComment() {
+            return null;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return -1;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return false;
+        }
+    }
+}
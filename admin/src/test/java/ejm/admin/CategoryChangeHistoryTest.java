@@ -0,0 +1,82 @@
+package ejm.admin;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ejm.admin.CategoryChangeHistory.Change;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryChangeHistoryTest {
+
+    private final CategoryChangeHistory history = new CategoryChangeHistory("k2x", 4);
+
+    @Test
+    public void idsAreEpochAndSequence() throws Exception {
+        assertThat(history.append("created", "{}").getId()).isEqualTo("k2x-1");
+        assertThat(history.append("updated", "{}").getId()).isEqualTo("k2x-2");
+
+        assertThat(history.resumePoint("k2x-2")).isEqualTo(2);
+        assertThat(history.resumePoint("k2x-0")).isEqualTo(0);
+        assertThat(history.resumePoint("k2y-2")).isEqualTo(-1);
+        assertThat(history.resumePoint("k2x-two")).isEqualTo(-1);
+        assertThat(history.resumePoint("2")).isEqualTo(-1);
+        assertThat(history.resumePoint("")).isEqualTo(-1);
+    }
+
+    @Test
+    public void resumesAfterTheLastIdSeen() throws Exception {
+        append(3);
+
+        assertThat(ids(history.since("k2x-1"))).containsExactly("k2x-2", "k2x-3");
+        assertThat(ids(history.since("k2x-3"))).isEmpty();
+        // An id from before anything was published resumes from the start.
+        assertThat(ids(history.since("k2x-0"))).containsExactly("k2x-1", "k2x-2", "k2x-3");
+    }
+
+    @Test
+    public void ringKeepsTheLatestChanges() throws Exception {
+        append(10);
+
+        // 7 to 10 are kept, so 6 is the oldest id that can be resumed from.
+        assertThat(ids(history.since("k2x-6"))).containsExactly("k2x-7", "k2x-8", "k2x-9", "k2x-10");
+        assertThat(history.since("k2x-8").get(0).getName()).isEqualTo("change-9");
+        assertReset(history.since("k2x-5"), "k2x-10");
+    }
+
+    @Test
+    public void resetsWhenTheIdCantBeResumedFrom() throws Exception {
+        append(2);
+
+        assertReset(history.since("k2x-3"), "k2x-2");
+        assertReset(history.since("earlier-1"), "k2x-2");
+        assertReset(history.since("garbage"), "k2x-2");
+    }
+
+    @Test
+    public void resetBeforeAnyChangeCarriesSequenceZero() throws Exception {
+        assertReset(history.since("earlier-7"), "k2x-0");
+        assertThat(history.since("k2x-0")).isEmpty();
+    }
+
+    private void append(int count) {
+        for (int i = 1; i <= count; i++) {
+            history.append("change-" + i, "{}");
+        }
+    }
+
+    private static void assertReset(List<Change> changes, String id) {
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).getName()).isEqualTo(CategoryChangeHistory.RESET);
+        // The reset carries the current id, so the client resumes from here once it has reloaded.
+        assertThat(changes.get(0).getId()).isEqualTo(id);
+    }
+
+    private static List<String> ids(List<Change> changes) {
+        return changes.stream().map(Change::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,52 @@
+package ejm.admin;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import ejm.admin.model.CategoryRecord;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryCsvReaderTest {
+
+    @Test
+    public void readsRecordsByHeaderName() throws Exception {
+        CategoryCsvReader reader = reader(
+                "parent,id,name,visible,imagePath\n" +
+                ",0,Top,true,n/a\n" +
+                "\n" +
+                "0,1000,\"Planes, Trains and \"\"Automobiles\"\"\",false,\n");
+
+        assertThat(reader.hasNext()).isTrue();
+        CategoryRecord top = reader.next();
+        assertThat(top.getId()).isEqualTo(0);
+        assertThat(top.getParent()).isNull();
+        assertThat(top.getName()).isEqualTo("Top");
+        assertThat(top.getVisible()).isTrue();
+        assertThat(top.getImagePath()).isEqualTo("n/a");
+        assertThat(top.getHeader()).isNull();
+
+        assertThat(reader.hasNext()).isTrue();
+        CategoryRecord transport = reader.next();
+        assertThat(transport.getId()).isEqualTo(1000);
+        assertThat(transport.getParent()).isEqualTo(0);
+        assertThat(transport.getName()).isEqualTo("Planes, Trains and \"Automobiles\"");
+        assertThat(transport.getVisible()).isFalse();
+        assertThat(transport.getImagePath()).isNull();
+
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresIdAndNameColumns() throws Exception {
+        reader("parent,name\n0,Top\n");
+    }
+
+    private CategoryCsvReader reader(String csv) throws Exception {
+        return new CategoryCsvReader(new BufferedReader(new StringReader(csv)));
+    }
+}
@@ -0,0 +1,91 @@
+package ejm.admin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ejm.admin.model.CategoryGeneratorSettings;
+import ejm.admin.model.CategoryRecord;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryGeneratorTest {
+
+    @Test
+    public void sameSeedSameHierarchy() throws Exception {
+        List<CategoryRecord> first = generate(settings(42, 2000, 4), 5000);
+        List<CategoryRecord> second = generate(settings(42, 2000, 4), 5000);
+        List<CategoryRecord> other = generate(settings(43, 2000, 4), 5000);
+
+        assertThat(first).hasSize(second.size());
+        boolean differs = false;
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(first.get(i).getId()).isEqualTo(second.get(i).getId());
+            assertThat(first.get(i).getParent()).isEqualTo(second.get(i).getParent());
+            assertThat(first.get(i).getName()).isEqualTo(second.get(i).getName());
+            assertThat(first.get(i).getVisible()).isEqualTo(second.get(i).getVisible());
+            differs |= i < other.size() && !first.get(i).getName().equals(other.get(i).getName());
+        }
+        assertThat(differs).isTrue();
+    }
+
+    @Test
+    public void parentsComeFirstWithinDepth() throws Exception {
+        CategoryGeneratorSettings settings = settings(7, 100000, 3);
+        settings.setParent(1000);
+        List<CategoryRecord> records = generate(settings, 5000);
+
+        Map<Integer, Integer> levels = new HashMap<>();
+        levels.put(1000, 0);
+        int expectedId = 5000;
+        for (CategoryRecord record : records) {
+            assertThat(record.getId()).isEqualTo(expectedId++);
+            assertThat(levels.containsKey(record.getParent())).isTrue();
+            int level = levels.get(record.getParent()) + 1;
+            assertThat(level).isLessThanOrEqualTo(3);
+            levels.put(record.getId(), level);
+
+            assertThat(record.getName().length()).isGreaterThanOrEqualTo(settings.getNameLengthMin());
+            assertThat(record.getName().length()).isLessThanOrEqualTo(settings.getNameLengthMax());
+            assertThat(record.getName().trim()).isEqualTo(record.getName());
+        }
+        assertThat(levels.values()).contains(3);
+    }
+
+    @Test
+    public void stopsAtCountWithRoughlyTheVisibleRatio() throws Exception {
+        CategoryGeneratorSettings settings = settings(1, 20000, 10);
+        settings.setVisibleRatio(0.25);
+        List<CategoryRecord> records = generate(settings, 0);
+
+        assertThat(records).hasSize(20000);
+        long visible = records.stream().filter(CategoryRecord::getVisible).count();
+        assertThat(visible).isGreaterThan(4500).isLessThan(5500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNamesTooShortForTheSchema() throws Exception {
+        CategoryGeneratorSettings settings = settings(1, 10, 2);
+        settings.setNameLengthMin(2);
+        new CategoryGenerator(settings, 0);
+    }
+
+    private static CategoryGeneratorSettings settings(long seed, int count, int depth) {
+        CategoryGeneratorSettings settings = new CategoryGeneratorSettings();
+        settings.setSeed(seed);
+        settings.setCount(count);
+        settings.setDepth(depth);
+        return settings;
+    }
+
+    private static List<CategoryRecord> generate(CategoryGeneratorSettings settings, int firstId) {
+        List<CategoryRecord> records = new ArrayList<>();
+        new CategoryGenerator(settings, firstId).forEachRemaining(records::add);
+        return records;
+    }
+}
@@ -0,0 +1,73 @@
+package ejm.admin;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import ejm.admin.model.CategoryRecord;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryNdjsonReaderTest {
+
+    @Test
+    public void readsOneRecordPerLine() throws Exception {
+        CategoryNdjsonReader reader = reader(
+                "{\"id\":0,\"name\":\"Top\",\"visible\":true}\n" +
+                "\n" +
+                "{\"id\":1000,\"name\":\"Transportation\",\"parent\":0,\"unknown\":1}\n");
+
+        assertThat(reader.hasNext()).isTrue();
+        CategoryRecord top = reader.next();
+        assertThat(top.getId()).isEqualTo(0);
+        assertThat(top.getName()).isEqualTo("Top");
+        assertThat(top.getParent()).isNull();
+
+        assertThat(reader.hasNext()).isTrue();
+        CategoryRecord transport = reader.next();
+        assertThat(transport.getId()).isEqualTo(1000);
+        assertThat(transport.getParent()).isEqualTo(0);
+
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void malformedLineIsNamed() throws Exception {
+        CategoryNdjsonReader reader = reader(
+                "{\"id\":0,\"name\":\"Top\"}\n" +
+                "{\"id\":1000,\"name\":\"Transportation\"\n" +
+                "{\"id\":1001,\"name\":\"Bikes\"}\n");
+
+        assertThat(reader.next().getId()).isEqualTo(0);
+        try {
+            reader.next();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).startsWith("Line 2 ");
+        }
+    }
+
+    @Test
+    public void wrongTypeIsNamed() throws Exception {
+        CategoryNdjsonReader reader = reader(
+                "{\"id\":0,\"name\":\"Top\"}\n" +
+                "\n" +
+                "{\"id\":\"zero\",\"name\":\"Transportation\"}\n");
+
+        reader.next();
+        try {
+            reader.next();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).startsWith("Line 3 ");
+        }
+    }
+
+    private CategoryNdjsonReader reader(String ndjson) throws Exception {
+        return new CategoryNdjsonReader(new BufferedReader(new StringReader(ndjson)));
+    }
+}
@@ -0,0 +1,37 @@
+package ejm.admin;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategoryPathsTest {
+
+    @Test
+    public void childPathAppendsParent() throws Exception {
+        assertThat(CategoryPaths.childPath(CategoryPaths.ROOT, 0)).isEqualTo("/0/");
+        assertThat(CategoryPaths.childPath("/0/1000/", 1001)).isEqualTo("/0/1000/1001/");
+        assertThat(CategoryPaths.childPath(null, 0)).isEqualTo("/0/");
+    }
+
+    @Test
+    public void ancestorIdsAreRootFirst() throws Exception {
+        assertThat(CategoryPaths.ancestorIds("/0/1000/1002/1009/")).containsExactly(0, 1000, 1002, 1009);
+        assertThat(CategoryPaths.ancestorIds(CategoryPaths.ROOT)).isEmpty();
+    }
+
+    @Test
+    public void depthCountsAncestors() throws Exception {
+        assertThat(CategoryPaths.depth(CategoryPaths.ROOT)).isEqualTo(0);
+        assertThat(CategoryPaths.depth("/0/1000/")).isEqualTo(2);
+    }
+
+    @Test
+    public void movingUnderOwnDescendantIsACycle() throws Exception {
+        assertThat(CategoryPaths.isCycle(1001, "/0/1000/1001/1003/")).isTrue();
+        assertThat(CategoryPaths.isCycle(1001, "/0/1000/1002/")).isFalse();
+        assertThat(CategoryPaths.isCycle(100, "/0/1000/")).isFalse();
+    }
+}
@@ -1,8 +1,19 @@
 package ejm.admin;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import ejm.admin.model.Category;
 import ejm.admin.model.TestCategoryObject;
 import io.restassured.RestAssured;
@@ -300,4 +311,621 @@ public class CategoryResourceTest {
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(204);
     }
+
+    @Test
+    public void gPageThroughCategories() throws Exception {
+        Response response =
+                given()
+                    .queryParam("limit", 5)
+                .when()
+                    .get("/admin/category")
+                .then()
+                    .extract().response();
+        List<Map<String, ?>> jsonAsList = JsonPath.from(response.asString()).getList("");
+        assertThat(jsonAsList.size()).isEqualTo(5);
+        assertThat(jsonAsList.get(0).get("id")).isEqualTo(0);
+        assertThat(jsonAsList.get(4).get("id")).isEqualTo(1003);
+        assertThat(response.getHeader("X-Next-Cursor")).isEqualTo("1003");
+        assertThat(response.getHeader("Link")).contains("after=1003");
+
+        // follow the cursor
+        response =
+                given()
+                    .queryParam("after", 1003)
+                    .queryParam("limit", 5)
+                .when()
+                    .get("/admin/category")
+                .then()
+                    .extract().response();
+        jsonAsList = JsonPath.from(response.asString()).getList("");
+        assertThat(jsonAsList.size()).isEqualTo(5);
+        assertThat(jsonAsList.get(0).get("id")).isEqualTo(1004);
+
+        // filter on parent, everything fits on one page so there is no cursor
+        response =
+                given()
+                    .queryParam("parent", 1009)
+                    .queryParam("limit", 50)
+                .when()
+                    .get("/admin/category")
+                .then()
+                    .extract().response();
+        jsonAsList = JsonPath.from(response.asString()).getList("");
+        assertThat(jsonAsList.size()).isEqualTo(4);
+        assertThat(jsonAsList.get(0).get("id")).isEqualTo(1012);
+        assertThat(response.getHeader("X-Next-Cursor")).isNull();
+    }
+
+    @Test
+    public void hConditionalRetrieveCategory() throws Exception {
+        Response response =
+                given()
+                    .pathParam("categoryId", 1014)
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        String etag = response.getHeader("ETag");
+        assertThat(etag).isNotNull();
+
+        response =
+                given()
+                    .header("If-None-Match", etag)
+                    .pathParam("categoryId", 1014)
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(304);
+    }
+
+    @Test
+    public void iRetrieveTreeAndSubtree() throws Exception {
+        Response response =
+                when()
+                    .get("/admin/category/tree")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(JsonPath.from(response.asString()).getInt("id")).isEqualTo(0);
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept, Accept-Encoding");
+        String etag = response.getHeader("ETag");
+        assertThat(etag).isNotNull();
+
+        response =
+                given()
+                    .header("If-None-Match", etag)
+                .when()
+                    .get("/admin/category/tree")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(304);
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept");
+
+        response =
+                given()
+                    .pathParam("categoryId", 1001)
+                    .queryParam("depth", 1)
+                .when()
+                    .get("/admin/category/{categoryId}/tree")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        JsonPath subtree = JsonPath.from(response.asString());
+        assertThat(subtree.getInt("id")).isEqualTo(1001);
+        assertThat(subtree.getList("children.id")).containsExactly(1003, 1004);
+        assertThat(subtree.getList("children[0].children")).isEmpty();
+    }
+
+    @Test
+    public void jBatchCreateCategories() throws Exception {
+        String batch = "[" +
+                "{\"ref\":\"child\",\"parentRef\":\"parent\",\"name\":\"Electric Bikes\",\"visible\":true}," +
+                "{\"ref\":\"parent\",\"parentId\":1001,\"name\":\"Commuter Bikes\",\"visible\":true}," +
+                "{\"ref\":\"bad\",\"parentId\":1001,\"name\":\"x\"}," +
+                "{\"ref\":\"cargo\",\"parentId\":1001,\"name\":\"Cargo Bikes\",\"visible\":true}," +
+                "{\"ref\":\"folding\",\"parentId\":1001,\"name\":\"Folding Bikes\",\"visible\":true}" +
+                "]";
+
+        Response response =
+                given()
+                    .contentType(ContentType.JSON)
+                    .body(batch)
+                .when()
+                    .post("/admin/category/batch");
+        assertThat(response.getStatusCode()).isEqualTo(200);
+
+        JsonPath results = JsonPath.from(response.asString());
+        assertThat(results.getList("status")).containsExactly(201, 201, 400, 201, 201);
+        Integer childId = results.getInt("[0].id");
+        Integer parentId = results.getInt("[1].id");
+        Integer cargoId = results.getInt("[3].id");
+        Integer foldingId = results.getInt("[4].id");
+
+        response =
+                given()
+                    .pathParam("categoryId", childId)
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        Category child = JsonPath.from(response.asString()).getObject("", Category.class);
+        assertThat(child.getName()).isEqualTo("Electric Bikes");
+        assertThat(child.getParent().getId()).isEqualTo(parentId);
+
+        // Later moves see earlier ones: the second would close a cycle, the third lands under the moved subtree.
+        String moves = "[" +
+                "{\"id\":" + parentId + ",\"parentId\":" + cargoId + "}," +
+                "{\"id\":" + cargoId + ",\"parentId\":" + parentId + "}," +
+                "{\"id\":" + foldingId + ",\"parentId\":" + childId + "}" +
+                "]";
+        response =
+                given()
+                    .contentType(ContentType.JSON)
+                    .body(moves)
+                .when()
+                    .post("/admin/category/batch");
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(JsonPath.from(response.asString()).getList("status")).containsExactly(200, 400, 200);
+
+        response =
+                given()
+                    .pathParam("categoryId", foldingId)
+                .when()
+                    .get("/admin/category/{categoryId}/ancestors")
+                .then()
+                    .extract().response();
+        assertThat(JsonPath.from(response.asString()).getList("id"))
+                .containsExactly(0, 1000, 1001, cargoId, parentId, childId);
+
+        response =
+                given()
+                    .pathParam("categoryId", cargoId)
+                .when()
+                    .get("/admin/category/{categoryId}/descendants")
+                .then()
+                    .extract().response();
+        assertThat(JsonPath.from(response.asString()).getList("id")).containsExactly(parentId, childId, foldingId);
+
+        // A second update of the same id is refused rather than undoing the first, and over-long
+        // columns fail their own item instead of the whole batch.
+        String invalid = "[" +
+                "{\"id\":" + cargoId + ",\"name\":\"Cargo Trikes\"}," +
+                "{\"id\":" + cargoId + ",\"name\":\"x\"}," +
+                "{\"id\":" + foldingId + ",\"imagePath\":\"" + repeat('i', 121) + "\"}," +
+                "{\"parentId\":1001,\"name\":\"Long Header\",\"header\":\"" + repeat('h', 256) + "\"}" +
+                "]";
+        response =
+                given()
+                    .contentType(ContentType.JSON)
+                    .body(invalid)
+                .when()
+                    .post("/admin/category/batch");
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(JsonPath.from(response.asString()).getList("status")).containsExactly(200, 400, 400, 400);
+
+        response =
+                given()
+                    .pathParam("categoryId", cargoId)
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        assertThat(JsonPath.from(response.asString()).getString("name")).isEqualTo("Cargo Trikes");
+    }
+
+    @Test
+    public void kRetrieveAncestorsAndDescendants() throws Exception {
+        Response response =
+                given()
+                    .pathParam("categoryId", 1015)
+                .when()
+                    .get("/admin/category/{categoryId}/ancestors")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(JsonPath.from(response.asString()).getList("id")).containsExactly(0, 1000, 1002, 1009);
+
+        response =
+                given()
+                    .pathParam("categoryId", 1009)
+                .when()
+                    .get("/admin/category/{categoryId}/descendants")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(JsonPath.from(response.asString()).getList("id")).containsExactly(1012, 1015, 1018, 1019);
+
+        response =
+                given()
+                    .pathParam("categoryId", 999999)
+                .when()
+                    .get("/admin/category/{categoryId}/ancestors")
+                .then()
+                    .extract().response();
+        assertThat(response.getStatusCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void lRetrieveCategoryWithExpandedParents() throws Exception {
+        Response response =
+                given()
+                    .pathParam("categoryId", 1015)
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        assertThat(JsonPath.from(response.asString()).getInt("parent")).isEqualTo(1009);
+
+        response =
+                given()
+                    .pathParam("categoryId", 1015)
+                    .queryParam("expand", "parent")
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        JsonPath json = JsonPath.from(response.asString());
+        assertThat(json.getString("parent.name")).isEqualTo("Cars");
+        assertThat(json.getInt("parent.parent")).isEqualTo(1002);
+
+        response =
+                given()
+                    .pathParam("categoryId", 1015)
+                    .queryParam("expand", "ancestors")
+                .when()
+                    .get("/admin/category/{categoryId}")
+                .then()
+                    .extract().response();
+        json = JsonPath.from(response.asString());
+        assertThat(json.getString("parent.parent.parent.parent.name")).isEqualTo("Top");
+        assertThat(json.get("parent.parent.parent.parent.parent")).isNull();
+    }
+
+    @Test
+    public void mServeRepeatedLookupsFromSecondLevelCache() throws Exception {
+        given()
+                .delete("/admin/cache")
+        .then()
+                .statusCode(204);
+
+        for (int i = 0; i < 3; i++) {
+            given()
+                    .pathParam("categoryId", 1012)
+            .when()
+                    .get("/admin/category/{categoryId}")
+            .then()
+                    .statusCode(200);
+        }
+
+        JsonPath json = JsonPath.from(when().get("/admin/cache").asString());
+        assertThat(json.getInt("entity.databaseLoads")).isLessThanOrEqualTo(1);
+        assertThat(json.getInt("entity.hits")).isGreaterThanOrEqualTo(2);
+        assertThat(json.getInt("query.hits")).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void nRetrieveCategoriesByIds() throws Exception {
+        Response response =
+                given()
+                    .queryParam("ids", "1015,1012,99999,1012")
+                .when()
+                    .get("/admin/category")
+                .then()
+                    .statusCode(200)
+                    .extract().response();
+        assertThat(JsonPath.from(response.asString()).getList("id")).containsExactly(1012, 1015);
+
+        given()
+                .queryParam("ids", "1012,abc")
+        .when()
+                .get("/admin/category")
+        .then()
+                .statusCode(400);
+    }
+
+    @Test
+    public void oNegotiateBinaryFormats() throws Exception {
+        Response json =
+                given()
+                    .accept(ContentType.JSON)
+                .when()
+                    .get("/admin/category/tree")
+                .then()
+                    .statusCode(200)
+                    .extract().response();
+
+        for (String type : new String[]{"application/cbor", "application/x-jackson-smile"}) {
+            Response binary =
+                    given()
+                        .accept(type)
+                    .when()
+                        .get("/admin/category/tree")
+                    .then()
+                        .statusCode(200)
+                        .contentType(type)
+                        .extract().response();
+
+            ObjectMapper mapper = "application/cbor".equals(type)
+                    ? new ObjectMapper(new CBORFactory())
+                    : new ObjectMapper(new SmileFactory());
+            JsonNode root = mapper.readTree(binary.asByteArray());
+            assertThat(root.get("name").asText()).isEqualTo("Top");
+            assertThat(binary.asByteArray().length).isLessThan(json.asByteArray().length);
+            assertThat(binary.getHeader("ETag")).isNotEqualTo(json.getHeader("ETag"));
+        }
+    }
+
+    @Test
+    public void pScrapeMetrics() throws Exception {
+        when()
+                .get("/admin/category/1001")
+        .then()
+                .statusCode(200);
+
+        String metrics =
+                when()
+                    .get("/admin/metrics")
+                .then()
+                    .statusCode(200)
+                    .contentType(ContentType.TEXT)
+                    .extract().asString();
+
+        assertThat(metrics).contains("# TYPE http_server_request_duration_seconds summary");
+        assertThat(metrics).contains("http_server_requests_total{route=\"GET /category/{categoryId}\",status=\"200\"}");
+        assertThat(metrics).contains("http_server_request_duration_seconds{route=\"GET /category/{categoryId}\",quantile=\"0.99\"}");
+        assertThat(metrics).contains("http_server_response_size_bytes_count{route=\"GET /category/{categoryId}\"}");
+        assertThat(metrics).contains("http_server_requests_in_flight{route=\"GET /category/{categoryId}\"} 0");
+    }
+
+    @Test
+    public void qStayWithinQueryBudgets() throws Exception {
+        QueryBudget get = QueryBudget.of("GET /category/{categoryId}", 2);
+        QueryBudget ancestors = QueryBudget.of("GET /category/{categoryId}/ancestors", 1);
+        QueryBudget descendants = QueryBudget.of("GET /category/{categoryId}/descendants", 2);
+
+        for (int id : new int[]{1000, 1001, 1003}) {
+            when().get("/admin/category/" + id).then().statusCode(200);
+            when().get("/admin/category/" + id + "?expand=ancestors").then().statusCode(200);
+            when().get("/admin/category/" + id + "/ancestors").then().statusCode(200);
+            when().get("/admin/category/" + id + "/descendants").then().statusCode(200);
+        }
+
+        get.verify();
+        ancestors.verify();
+        descendants.verify();
+    }
+
+    @Test
+    public void rGenerateCatalog() throws Exception {
+        JsonPath report =
+                given()
+                    .queryParam("seed", 7)
+                    .queryParam("count", 200)
+                    .queryParam("depth", 3)
+                    .queryParam("parent", 1000)
+                    .queryParam("firstId", 500000)
+                .when()
+                    .post("/admin/category/generate")
+                .then()
+                    .statusCode(200)
+                    .extract().jsonPath();
+        assertThat(report.getLong("inserted")).isEqualTo(200);
+        assertThat(report.getLong("orphaned")).isEqualTo(0);
+
+        JsonPath first =
+                when()
+                    .get("/admin/category/500000")
+                .then()
+                    .statusCode(200)
+                    .extract().jsonPath();
+        assertThat(first.getInt("parent")).isEqualTo(1000);
+
+        given()
+                .queryParam("nameLengthMin", 1)
+        .when()
+                .post("/admin/category/generate")
+        .then()
+                .statusCode(400);
+    }
+
+    @Test
+    public void sRollBackFailedImport() throws Exception {
+        given()
+                .contentType("text/csv")
+                .body("id,name,parent\n600000,Imported,1000\n600001,Also Imported,600000\nnot-an-id,Broken,1000\n")
+        .when()
+                .post("/admin/category/import")
+        .then()
+                .statusCode(400);
+
+        when()
+                .get("/admin/category/600000")
+        .then()
+                .statusCode(204);
+        when()
+                .get("/admin/category/600001")
+        .then()
+                .statusCode(204);
+
+        String message =
+                given()
+                    .contentType("application/x-ndjson")
+                    .body("{\"id\":600002,\"name\":\"Imported\",\"parent\":1000}\n{\"id\":600003,\"name\":\"Broken\"\n")
+                .when()
+                    .post("/admin/category/import")
+                .then()
+                    .statusCode(400)
+                    .extract().asString();
+        assertThat(message).startsWith("Line 2 ");
+
+        when()
+                .get("/admin/category/600002")
+        .then()
+                .statusCode(204);
+    }
+
+    @Test
+    public void tGenerateAfterCreate() throws Exception {
+        Category before = new Category();
+        before.setName("Before Generate");
+        before.setParent(new TestCategoryObject(1000));
+        given()
+                .contentType(ContentType.JSON)
+                .body(before)
+        .when()
+                .post("/admin/category")
+        .then()
+                .statusCode(201);
+
+        JsonPath report =
+                given()
+                    .queryParam("seed", 11)
+                    .queryParam("count", 100)
+                    .queryParam("depth", 2)
+                    .queryParam("parent", 1000)
+                .when()
+                    .post("/admin/category/generate")
+                .then()
+                    .statusCode(200)
+                    .extract().jsonPath();
+        assertThat(report.getLong("inserted")).isEqualTo(100);
+
+        // Hibernate still holds the rest of the block the first create came from.
+        for (int i = 0; i < 3; i++) {
+            Category after = new Category();
+            after.setName("After Generate " + i);
+            after.setParent(new TestCategoryObject(1000));
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(after)
+            .when()
+                    .post("/admin/category")
+            .then()
+                    .statusCode(201);
+        }
+    }
+
+    @Test
+    public void uResumeChangeFeed() throws Exception {
+        // An id from another epoch can't be resumed from, the reset carries the id to resume from instead.
+        Map<String, String> reset = firstChange("unknown-1");
+        assertThat(reset.get("event")).isEqualTo("reset");
+        String lastEventId = reset.get("id");
+
+        Category category = new Category();
+        category.setName("Gravel Bikes");
+        category.setParent(new TestCategoryObject(1001));
+        given()
+                .contentType(ContentType.JSON)
+                .body(category)
+        .when()
+                .post("/admin/category")
+        .then()
+                .statusCode(201);
+
+        Map<String, String> missed = firstChange(lastEventId);
+        assertThat(missed.get("event")).isEqualTo("created");
+        assertThat(missed.get("data")).contains("Gravel Bikes");
+        assertThat(missed.get("id")).isNotEqualTo(lastEventId);
+    }
+
+    @Test
+    public void vRetrieveSubtreeBeforeAndAfterSnapshot() throws Exception {
+        Category category = new Category();
+        category.setName("Fat Bikes");
+        category.setParent(new TestCategoryObject(1003));
+        String location =
+                given()
+                    .contentType(ContentType.JSON)
+                    .body(category)
+                .when()
+                    .post("/admin/category")
+                .then()
+                    .statusCode(201)
+                    .extract().header("Location");
+        Integer categoryId = Integer.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+        // The write dropped the snapshot, so this subtree comes from a prefix scan.
+        String scanned =
+                given()
+                    .pathParam("categoryId", 1001)
+                    .queryParam("depth", 2)
+                .when()
+                    .get("/admin/category/{categoryId}/tree")
+                .then()
+                    .statusCode(200)
+                    .extract().asString();
+        assertThat(JsonPath.from(scanned).getList("children[0].children.id")).contains(categoryId);
+
+        when()
+                .get("/admin/category/tree")
+        .then()
+                .statusCode(200);
+
+        String fromSnapshot =
+                given()
+                    .pathParam("categoryId", 1001)
+                    .queryParam("depth", 2)
+                .when()
+                    .get("/admin/category/{categoryId}/tree")
+                .then()
+                    .statusCode(200)
+                    .extract().asString();
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(fromSnapshot)).isEqualTo(mapper.readTree(scanned));
+    }
+
+    @Test
+    public void wRejectMalformedBody() throws Exception {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"name\": \"Unclosed\"")
+        .when()
+                .post("/admin/category")
+        .then()
+                .statusCode(400);
+
+        String metrics =
+                when()
+                    .get("/admin/metrics")
+                .then()
+                    .statusCode(200)
+                    .extract().asString();
+        assertThat(metrics).contains("http_server_requests_total{route=\"POST /category\",status=\"400\"}");
+        assertThat(metrics).contains("http_server_requests_in_flight{route=\"POST /category\"} 0");
+    }
+
+    /**
+     * Subscribes to the change feed and returns the fields of the first event sent.
+     */
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static Map<String, String> firstChange(String lastEventId) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(RestAssured.baseURI + "/admin/category/changes").openConnection();
+        connection.setRequestProperty("Accept", "text/event-stream");
+        connection.setRequestProperty("Last-Event-ID", lastEventId);
+        connection.setReadTimeout(10000);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            Map<String, String> fields = new HashMap<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty()) {
+                    if (!fields.isEmpty()) {
+                        return fields;
+                    }
+                } else if (line.indexOf(':') > 0) {
+                    int colon = line.indexOf(':');
+                    fields.merge(line.substring(0, colon), line.substring(colon + 1).trim(), (a, b) -> a + "\n" + b);
+                }
+            }
+            return fields;
+        } finally {
+            connection.disconnect();
+        }
+    }
 }
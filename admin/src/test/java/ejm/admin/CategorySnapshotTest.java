@@ -0,0 +1,76 @@
+package ejm.admin;
+
+import java.time.LocalDateTime;
+
+import ejm.admin.model.CategoryNode;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CategorySnapshotTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2017, 3, 1, 10, 15, 30, 123456789);
+
+    // 0 -> 1000 -> (1001 -> 1003, 1002), added out of order to check they're linked by id.
+    private final CategorySnapshot snapshot = CategorySnapshot.builder()
+            .add(1003, 1001, "Shoes", true, "shoes.png", CREATED, null, 0)
+            .add(0, null, "Top", false, null, CREATED, null, 0)
+            .add(1001, 1000, "Shoes", true, null, CREATED, CREATED.plusDays(1), 2)
+            .add(1000, 0, "Clothing", null, null, null, null, null)
+            .add(1002, 1000, "Hats", true, "hats.png", CREATED, null, 1)
+            .build();
+
+    @Test
+    public void subtreesAreContiguous() throws Exception {
+        int top = snapshot.root();
+        assertThat(snapshot.id(top)).isEqualTo(0);
+        assertThat(snapshot.subtreeEnd(top)).isEqualTo(5);
+
+        int shoes = snapshot.indexOf(1001);
+        assertThat(snapshot.subtreeEnd(shoes) - shoes).isEqualTo(2);
+        assertThat(snapshot.id(shoes + 1)).isEqualTo(1003);
+        assertThat(snapshot.indexOf(42)).isEqualTo(-1);
+    }
+
+    @Test
+    public void childrenAndAncestorsAreIndexes() throws Exception {
+        int clothing = snapshot.indexOf(1000);
+        assertThat(snapshot.childCount(clothing)).isEqualTo(2);
+        assertThat(snapshot.children(clothing)).isEqualTo(new int[]{snapshot.indexOf(1001), snapshot.indexOf(1002)});
+        assertThat(snapshot.ancestors(snapshot.indexOf(1003))).isEqualTo(new int[]{snapshot.root(), clothing, snapshot.indexOf(1001)});
+        assertThat(snapshot.ancestors(snapshot.root())).isEqualTo(new int[0]);
+        assertThat(snapshot.parent(snapshot.root())).isEqualTo(-1);
+        assertThat(snapshot.name(snapshot.indexOf(1003))).isSameAs(snapshot.name(snapshot.indexOf(1001)));
+    }
+
+    @Test
+    public void writesTheSameAsCategoryNode() throws Exception {
+        CategoryNode top = new CategoryNode(0, "Top", false, null, null, CREATED, null, 0);
+        CategoryNode clothing = new CategoryNode(1000, "Clothing", null, null, 0, null, null, null);
+        CategoryNode shoes = new CategoryNode(1001, "Shoes", true, null, 1000, CREATED, CREATED.plusDays(1), 2);
+        top.addChild(clothing);
+        clothing.addChild(shoes);
+        clothing.addChild(new CategoryNode(1002, "Hats", true, "hats.png", 1000, CREATED, null, 1));
+        shoes.addChild(new CategoryNode(1003, "Shoes", true, "shoes.png", 1001, CREATED, null, 0));
+
+        assertThat(new String(snapshot.write(ConfigureJacksonProvider.MAPPER, snapshot.root(), Integer.MAX_VALUE), "UTF-8"))
+                .isEqualTo(ConfigureJacksonProvider.MAPPER.writeValueAsString(top));
+        assertThat(snapshot.write(ConfigureJacksonProvider.CBOR_MAPPER, snapshot.indexOf(1000), 1))
+                .isEqualTo(ConfigureJacksonProvider.CBOR_MAPPER.writeValueAsBytes(
+                        withoutGrandchildren(clothing)));
+    }
+
+    private static CategoryNode withoutGrandchildren(CategoryNode node) {
+        CategoryNode copy = copy(node);
+        node.getChildren().forEach(child -> copy.addChild(copy(child)));
+        return copy;
+    }
+
+    private static CategoryNode copy(CategoryNode node) {
+        return new CategoryNode(node.getId(), node.getName(), node.getVisible(), node.getImagePath(), node.getParent(),
+                                node.getCreated(), node.getUpdated(), node.getVersion());
+    }
+}
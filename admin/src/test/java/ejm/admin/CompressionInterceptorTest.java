@@ -0,0 +1,130 @@
+package ejm.admin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CompressionInterceptorTest {
+
+    @Test
+    public void bodyAtThresholdIsWrittenAsIs() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = headers();
+        byte[] body = body(Compression.THRESHOLD);
+
+        CompressionInterceptor.ThresholdOutputStream out =
+                new CompressionInterceptor.ThresholdOutputStream(target, Compression.GZIP, headers);
+        out.write(body, 0, body.length / 2);
+        out.write(body, body.length / 2, body.length - body.length / 2);
+        out.finish();
+
+        assertThat(target.toByteArray()).isEqualTo(body);
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_LENGTH)).isEqualTo(Compression.THRESHOLD);
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo(new EntityTag("1014-3"));
+    }
+
+    @Test
+    public void bodyOverThresholdIsCompressed() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        MultivaluedMap<String, Object> headers = headers();
+        byte[] body = body(Compression.THRESHOLD + 1);
+
+        CompressionInterceptor.ThresholdOutputStream out =
+                new CompressionInterceptor.ThresholdOutputStream(target, Compression.GZIP, headers);
+        out.write(body, 0, Compression.THRESHOLD);
+        assertThat(target.size()).isEqualTo(0);
+        out.write(body[Compression.THRESHOLD]);
+        out.finish();
+
+        assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo(Compression.GZIP);
+        assertThat(headers.containsKey(HttpHeaders.CONTENT_LENGTH)).isFalse();
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo(new EntityTag("1014-3-gzip"));
+        assertThat(decompress(target.toByteArray(), body.length)).isEqualTo(body);
+    }
+
+    @Test
+    public void flushSendsWhatIsCompressedSoFar() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] body = body(Compression.THRESHOLD * 3);
+
+        CompressionInterceptor.ThresholdOutputStream out =
+                new CompressionInterceptor.ThresholdOutputStream(target, Compression.DEFLATE, headers());
+        out.write(body, 0, Compression.THRESHOLD);
+        out.flush();
+        // Still under the threshold, so nothing is sent, the body may end small.
+        assertThat(target.size()).isEqualTo(0);
+
+        out.write(body, Compression.THRESHOLD, Compression.THRESHOLD);
+        out.flush();
+        byte[] sent = target.toByteArray();
+        assertThat(sent.length).isGreaterThan(0);
+        assertThat(inflate(sent, Compression.THRESHOLD * 2)).isEqualTo(Arrays.copyOf(body, Compression.THRESHOLD * 2));
+
+        out.write(body, Compression.THRESHOLD * 2, Compression.THRESHOLD);
+        out.finish();
+        assertThat(inflate(target.toByteArray(), body.length)).isEqualTo(body);
+    }
+
+    @Test
+    public void weakTagStaysWeak() throws Exception {
+        MultivaluedMap<String, Object> headers = headers();
+        headers.putSingle(HttpHeaders.ETAG, new EntityTag("tree", true));
+        byte[] body = body(Compression.THRESHOLD + 1);
+
+        CompressionInterceptor.ThresholdOutputStream out =
+                new CompressionInterceptor.ThresholdOutputStream(new ByteArrayOutputStream(), Compression.DEFLATE, headers);
+        out.write(body, 0, body.length);
+        out.finish();
+
+        assertThat(headers.getFirst(HttpHeaders.ETAG)).isEqualTo(new EntityTag("tree-deflate", true));
+    }
+
+    private static MultivaluedMap<String, Object> headers() {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(HttpHeaders.CONTENT_LENGTH, Compression.THRESHOLD);
+        headers.putSingle(HttpHeaders.ETAG, new EntityTag("1014-3"));
+        return headers;
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        return body;
+    }
+
+    private static byte[] decompress(byte[] compressed, int length) throws Exception {
+        byte[] plain = new byte[length];
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+            in.readFully(plain);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+        return plain;
+    }
+
+    /**
+     * Reads exactly {@code length} bytes, which works on a stream that was only flushed, not finished.
+     */
+    private static byte[] inflate(byte[] compressed, int length) throws Exception {
+        byte[] plain = new byte[length];
+        new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed))).readFully(plain);
+        return plain;
+    }
+}
@@ -0,0 +1,53 @@
+package ejm.admin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class CompressionTest {
+
+    @Test
+    public void negotiatePrefersGzip() throws Exception {
+        assertThat(Compression.negotiate("gzip, deflate")).isEqualTo(Compression.GZIP);
+        assertThat(Compression.negotiate("deflate, gzip;q=0.5")).isEqualTo(Compression.GZIP);
+        assertThat(Compression.negotiate("deflate")).isEqualTo(Compression.DEFLATE);
+        assertThat(Compression.negotiate("*")).isEqualTo(Compression.GZIP);
+    }
+
+    @Test
+    public void negotiateHonoursRefusals() throws Exception {
+        assertThat(Compression.negotiate(null)).isNull();
+        assertThat(Compression.negotiate("identity")).isNull();
+        assertThat(Compression.negotiate("gzip;q=0, deflate")).isEqualTo(Compression.DEFLATE);
+        assertThat(Compression.negotiate("gzip;q=0.0, br")).isNull();
+    }
+
+    @Test
+    public void encodeRoundTrips() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            json.append("{\"id\":").append(i).append(",\"header\":\"header\",\"imagePath\":\"n/a\"},");
+        }
+        byte[] body = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = Compression.encode(Compression.GZIP, body);
+        assertThat(compressed.length).isLessThan(body.length / 4);
+
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                inflated.write(buffer, 0, read);
+            }
+        }
+        assertThat(inflated.toByteArray()).isEqualTo(body);
+    }
+}
@@ -0,0 +1,73 @@
+package ejm.admin;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.restassured.RestAssured.when;
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Asserts that the requests made to a route, between creating the budget and verifying it, ran no more
+ * JDBC statements than allowed, going by {@code db_statements_per_request} at {@code /admin/metrics}.
+ *
+ * <pre>
+ * QueryBudget budget = QueryBudget.of("GET /category/{categoryId}", 2);
+ * when().get("/admin/category/1");
+ * budget.verify();
+ * </pre>
+ *
+ * Only the totals are exported, so the check is on the average per request. That still catches an
+ * N+1, which grows with the data rather than by one or two statements.
+ *
+ * @author Ken Finnigan
+ */
+public final class QueryBudget {
+
+    private final String route;
+
+    private final long statementsPerRequest;
+
+    private final long startSum;
+
+    private final long startCount;
+
+    private QueryBudget(String route, long statementsPerRequest) {
+        this.route = route;
+        this.statementsPerRequest = statementsPerRequest;
+        String metrics = scrape();
+        this.startSum = value(metrics, "db_statements_per_request_sum", route);
+        this.startCount = value(metrics, "db_statements_per_request_count", route);
+    }
+
+    public static QueryBudget of(String route, long statementsPerRequest) {
+        return new QueryBudget(route, statementsPerRequest);
+    }
+
+    public void verify() {
+        String metrics = scrape();
+        long requests = value(metrics, "db_statements_per_request_count", route) - startCount;
+        long statements = value(metrics, "db_statements_per_request_sum", route) - startSum;
+
+        assertThat(requests)
+                .as("requests to " + route)
+                .isGreaterThan(0);
+        assertThat(statements)
+                .as("statements for " + requests + " requests to " + route + ", budget " + statementsPerRequest + " each")
+                .isLessThanOrEqualTo(statementsPerRequest * requests);
+    }
+
+    private static String scrape() {
+        return when()
+                    .get("/admin/metrics")
+                .then()
+                    .statusCode(200)
+                    .extract().asString();
+    }
+
+    private static long value(String metrics, String name, String route) {
+        Matcher matcher = Pattern
+                .compile("^" + Pattern.quote(name + "{route=\"" + route + "\"} ") + "(\\S+)$", Pattern.MULTILINE)
+                .matcher(metrics);
+        return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : 0;
+    }
+}
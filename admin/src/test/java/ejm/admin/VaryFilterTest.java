@@ -0,0 +1,55 @@
+package ejm.admin;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class VaryFilterTest {
+
+    @Test
+    public void addSetsVaryWhenAbsent() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        VaryFilter.add(headers, HttpHeaders.ACCEPT);
+
+        assertThat(headers.getFirst(VaryFilter.VARY)).isEqualTo("Accept");
+    }
+
+    @Test
+    public void addAppendsToExistingVary() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        VaryFilter.add(headers, HttpHeaders.ACCEPT);
+        VaryFilter.add(headers, HttpHeaders.ACCEPT_ENCODING);
+
+        assertThat(headers.get(VaryFilter.VARY)).hasSize(1);
+        assertThat(headers.getFirst(VaryFilter.VARY)).isEqualTo("Accept, Accept-Encoding");
+    }
+
+    @Test
+    public void addJoinsSeveralVaryValues() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.add(VaryFilter.VARY, "Origin");
+        headers.add(VaryFilter.VARY, "Accept");
+        VaryFilter.add(headers, HttpHeaders.ACCEPT_ENCODING);
+
+        assertThat(headers.getFirst(VaryFilter.VARY)).isEqualTo("Origin, Accept, Accept-Encoding");
+    }
+
+    @Test
+    public void addSkipsNamesAlreadyCovered() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(VaryFilter.VARY, "accept-encoding");
+        VaryFilter.add(headers, HttpHeaders.ACCEPT_ENCODING);
+        assertThat(headers.getFirst(VaryFilter.VARY)).isEqualTo("accept-encoding");
+
+        headers.putSingle(VaryFilter.VARY, "*");
+        VaryFilter.add(headers, HttpHeaders.ACCEPT);
+        assertThat(headers.getFirst(VaryFilter.VARY)).isEqualTo("*");
+    }
+}
@@ -0,0 +1,56 @@
+package ejm.admin.metrics;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Ken Finnigan
+ */
+public class HistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueInOrder() throws Exception {
+        assertThat(Histogram.index(0)).isEqualTo(0);
+        assertThat(Histogram.index(15)).isEqualTo(15);
+        assertThat(Histogram.index(16)).isEqualTo(16);
+        assertThat(Histogram.index(Long.MAX_VALUE)).isEqualTo(Histogram.BUCKETS - 1);
+
+        for (int i = 0; i < Histogram.BUCKETS - 1; i++) {
+            long lower = Histogram.lowerBound(i);
+            assertThat(Histogram.index(lower)).isEqualTo(i);
+            assertThat(Histogram.index(Histogram.lowerBound(i + 1) - 1)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void quantilesAreWithinBucketPrecision() throws Exception {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count()).isEqualTo(100_000);
+        assertThat(snapshot.sum()).isEqualTo(100_000L * 100_001 / 2);
+        assertWithin(snapshot.quantile(0.5), 50_000);
+        assertWithin(snapshot.quantile(0.9), 90_000);
+        assertWithin(snapshot.quantile(0.99), 99_000);
+        assertWithin(snapshot.quantile(0.999), 99_900);
+    }
+
+    @Test
+    public void emptyAndNegative() throws Exception {
+        Histogram histogram = new Histogram();
+        assertThat(histogram.snapshot().quantile(0.99)).isEqualTo(0);
+
+        histogram.record(-5);
+        assertThat(histogram.snapshot().count()).isEqualTo(1);
+        assertThat(histogram.snapshot().quantile(1)).isEqualTo(0);
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertThat(actual).isGreaterThanOrEqualTo(expected);
+        assertThat(actual).isLessThanOrEqualTo(expected + expected / Histogram.SUB_BUCKETS);
+    }
+}
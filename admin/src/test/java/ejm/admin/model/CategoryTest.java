@@ -63,8 +63,7 @@ public class CategoryTest {
         assertThat(cat1.hashCode()).isEqualTo(cat2.hashCode());
     }
 
-    //Uncomment @Test when code fixed from reading chapter 4
-    //@Test
+    @Test
     public void categoriesWithIdenticalParentIdAreEqual() throws Exception {
         LocalDateTime now = LocalDateTime.now();
         Category parent1 = createParentCategory(1, "Top", now);
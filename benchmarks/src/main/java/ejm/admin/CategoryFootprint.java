@@ -0,0 +1,33 @@
+package ejm.admin;
+
+import java.io.IOException;
+
+import ejm.admin.model.Fixtures;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Prints the heap retained by the category hierarchy in each form the admin service can hold it: the
+ * {@link CategorySnapshot} behind {@code GET /category/tree}, the {@link ejm.admin.model.CategoryNode}s
+ * a prefix scan builds and the {@link ejm.admin.model.CategoryTree} entities, for the given sizes.
+ *
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar ejm.admin.CategoryFootprint [size...]}.
+ *
+ * @author Ken Finnigan
+ */
+public final class CategoryFootprint {
+
+    private CategoryFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] sizes = args.length > 0 ? args : new String[]{"1000", "10000", "100000"};
+        System.out.printf("%10s %14s %14s %14s%n", "size", "snapshot", "nodes", "entities");
+        for (String arg : sizes) {
+            int size = Integer.parseInt(arg);
+            long snapshot = GraphLayout.parseInstance(Fixtures.snapshot(size)).totalSize();
+            long nodes = GraphLayout.parseInstance(Fixtures.tree(size)).totalSize();
+            long entities = GraphLayout.parseInstance(Fixtures.entityTree(size)).totalSize();
+            System.out.printf("%10d %14d %14d %14d%n", size, snapshot, nodes, entities);
+        }
+    }
+}
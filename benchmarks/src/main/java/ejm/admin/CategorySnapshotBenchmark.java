@@ -0,0 +1,130 @@
+package ejm.admin;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ejm.admin.model.Category;
+import ejm.admin.model.CategoryNode;
+import ejm.admin.model.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the hierarchy from the rows of one scan of the category table, as a {@link CategorySnapshot}
+ * and as the {@link CategoryNode}s the prefix scan of {@code GET /category/{id}/tree} returns, and
+ * writing subtrees from the snapshot.
+ *
+ * The rows hold the column types the native query returns, so both builds pay the same conversions
+ * as {@link CategoryTreeLoader}. Run with {@code -prof gc} to compare the bytes each build allocates;
+ * {@link CategoryFootprint} reports what each keeps.
+ *
+ * @author Ken Finnigan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CategorySnapshotBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<Object[]> rows;
+
+    private CategorySnapshot snapshot;
+
+    private ObjectMapper mapper;
+
+    private int subtree;
+
+    @Setup
+    public void setUp() {
+        rows = rows(size);
+        snapshot = Fixtures.snapshot(size);
+        mapper = Fixtures.mapper("json");
+        // The first child of the root, a tenth of the catalog.
+        subtree = snapshot.root() + 1;
+    }
+
+    @Benchmark
+    public CategorySnapshot buildSnapshot() {
+        CategorySnapshot.Builder builder = CategorySnapshot.builder();
+        for (Object[] row : rows) {
+            builder.add(CategoryTreeLoader.toInteger(row[0]),
+                        CategoryTreeLoader.toInteger(row[4]),
+                        (String) row[1],
+                        (Boolean) row[2],
+                        (String) row[3],
+                        CategoryTreeLoader.toLocalDateTime(row[5]),
+                        CategoryTreeLoader.toLocalDateTime(row[6]),
+                        CategoryTreeLoader.toInteger(row[7]));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public CategoryNode buildNodes() {
+        Map<Integer, CategoryNode> nodes = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (Object[] row : rows) {
+            CategoryNode node = CategoryTreeLoader.toNode(row);
+            nodes.put(node.getId(), node);
+        }
+        CategoryNode root = null;
+        for (Object[] row : rows) {
+            CategoryNode parent = nodes.get(CategoryTreeLoader.toInteger(row[4]));
+            if (parent != null) {
+                parent.addChild(nodes.get(CategoryTreeLoader.toInteger(row[0])));
+            } else if (root == null) {
+                root = nodes.get(CategoryTreeLoader.toInteger(row[0]));
+            }
+        }
+        return root;
+    }
+
+    @Benchmark
+    public byte[] writeSubtree() throws IOException {
+        return snapshot.write(mapper, subtree, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public byte[] writeSubtreeOneLevel() throws IOException {
+        return snapshot.write(mapper, subtree, 1);
+    }
+
+    /**
+     * @return the rows of {@link Fixtures#categories(int)} as the tree loader's native query returns them.
+     */
+    static List<Object[]> rows(int size) {
+        List<Object[]> rows = new ArrayList<>(size);
+        for (Category category : Fixtures.categories(size)) {
+            rows.add(new Object[]{
+                    category.getId(),
+                    category.getName(),
+                    category.isVisible(),
+                    category.getImagePath(),
+                    category.getParent() == null ? null : category.getParent().getId(),
+                    category.getCreated() == null ? null : Timestamp.valueOf(category.getCreated()),
+                    category.getUpdated() == null ? null : Timestamp.valueOf(category.getUpdated()),
+                    category.getVersion()
+            });
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,57 @@
+package ejm.admin.converter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LocalDateTimeConverter} runs twice for every category read or written, for created and updated.
+ *
+ * @author Ken Finnigan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LocalDateTimeConverterBenchmark {
+
+    private final LocalDateTimeConverter converter = new LocalDateTimeConverter();
+
+    private LocalDateTime dateTime;
+
+    private Timestamp timestamp;
+
+    @Setup
+    public void setUp() {
+        dateTime = LocalDateTime.of(2002, 1, 1, 12, 30, 15, 123_000_000);
+        timestamp = Timestamp.valueOf(dateTime);
+    }
+
+    @Benchmark
+    public Timestamp toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(dateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime toEntityAttribute() {
+        return converter.convertToEntityAttribute(timestamp);
+    }
+
+    @Benchmark
+    public LocalDateTime roundTrip() {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(dateTime));
+    }
+}
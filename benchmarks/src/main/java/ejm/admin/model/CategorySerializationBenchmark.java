@@ -0,0 +1,135 @@
+package ejm.admin.model;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import ejm.admin.CategorySnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson encoding and decoding of the admin service's category representations, in each format
+ * it serves.
+ *
+ * Reading {@link Category} goes through {@code @JsonIdentityInfo} and {@link CategoryIdResolver} to
+ * turn parent ids back into objects, and writing an expanded category walks its ancestors through
+ * {@link CategoryReferenceSerializer}; {@link CategoryNode} has neither, so the difference between
+ * them is mostly identity handling. Reading {@link CategoryTree} includes hashing each child into its
+ * parent's set. {@link CategorySnapshot} writes the same output as {@link CategoryNode} straight from its
+ * arrays, as {@code GET /category/tree} serves it.
+ *
+ * @author Ken Finnigan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CategorySerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private List<Category> categories;
+
+    private Category deepest;
+
+    private CategoryNode tree;
+
+    private CategoryTree entityTree;
+
+    private CategorySnapshot snapshot;
+
+    private ObjectMapper mapper;
+
+    private ObjectWriter categoriesWriter;
+
+    private ObjectWriter expandedWriter;
+
+    private ObjectWriter treeWriter;
+
+    private ObjectWriter entityTreeWriter;
+
+    private ObjectReader categoriesReader;
+
+    private ObjectReader entityTreeReader;
+
+    private byte[] categoriesBytes;
+
+    private byte[] entityTreeBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Fixtures.mapper(format);
+        categories = Fixtures.categories(size);
+        deepest = categories.get(categories.size() - 1);
+        tree = Fixtures.tree(size);
+        entityTree = Fixtures.entityTree(size);
+        snapshot = Fixtures.snapshot(size);
+
+        CollectionType listOfCategories = mapper.getTypeFactory().constructCollectionType(List.class, Category.class);
+        categoriesWriter = mapper.writerFor(listOfCategories);
+        expandedWriter = mapper.writerFor(Category.class).withAttribute(CategoryReferenceSerializer.EXPAND, Integer.MAX_VALUE);
+        treeWriter = mapper.writerFor(CategoryNode.class);
+        entityTreeWriter = mapper.writerFor(CategoryTree.class);
+
+        categoriesReader = mapper.readerFor(listOfCategories);
+        entityTreeReader = mapper.readerFor(CategoryTree.class);
+
+        categoriesBytes = categoriesWriter.writeValueAsBytes(categories);
+        entityTreeBytes = entityTreeWriter.writeValueAsBytes(entityTree);
+    }
+
+    @Benchmark
+    public byte[] writeCategories() throws IOException {
+        return categoriesWriter.writeValueAsBytes(categories);
+    }
+
+    @Benchmark
+    public List<Category> readCategories() throws IOException {
+        return categoriesReader.readValue(categoriesBytes);
+    }
+
+    @Benchmark
+    public byte[] writeCategoryWithAncestors() throws IOException {
+        return expandedWriter.writeValueAsBytes(deepest);
+    }
+
+    @Benchmark
+    public byte[] writeTree() throws IOException {
+        return treeWriter.writeValueAsBytes(tree);
+    }
+
+    @Benchmark
+    public byte[] writeSnapshot() throws IOException {
+        return snapshot.write(mapper, snapshot.root(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public byte[] writeEntityTree() throws IOException {
+        return entityTreeWriter.writeValueAsBytes(entityTree);
+    }
+
+    @Benchmark
+    public CategoryTree readEntityTree() throws IOException {
+        return entityTreeReader.readValue(entityTreeBytes);
+    }
+}
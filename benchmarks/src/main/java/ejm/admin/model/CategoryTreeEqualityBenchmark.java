@@ -0,0 +1,75 @@
+package ejm.admin.model;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CategoryTree#hashCode()} and {@link CategoryTree#equals(Object)} include the children, so
+ * both walk the whole subtree, and comparing the children sets hashes each child again.
+ *
+ * The two trees are equal but separately built, so nothing short-circuits on identity.
+ *
+ * @author Ken Finnigan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CategoryTreeEqualityBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private CategoryTree tree;
+
+    private CategoryTree copy;
+
+    private Category category;
+
+    private Category categoryCopy;
+
+    @Setup
+    public void setUp() throws IOException {
+        tree = Fixtures.entityTree(size);
+        copy = Fixtures.entityTree(size);
+        category = Fixtures.categories(size).get(size - 1);
+        categoryCopy = Fixtures.categories(size).get(size - 1);
+    }
+
+    @Benchmark
+    public int treeHashCode() {
+        return tree.hashCode();
+    }
+
+    @Benchmark
+    public boolean treeEquals() {
+        return tree.equals(copy);
+    }
+
+    /**
+     * For scale, the entity compares its parent by id alone.
+     */
+    @Benchmark
+    public boolean categoryEquals() {
+        return category.equals(categoryCopy);
+    }
+
+    @Benchmark
+    public int categoryHashCode() {
+        return category.hashCode();
+    }
+}
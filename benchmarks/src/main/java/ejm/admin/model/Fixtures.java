@@ -0,0 +1,138 @@
+package ejm.admin.model;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ejm.admin.CategorySnapshot;
+
+/**
+ * Category hierarchies for the benchmarks, shaped like a storefront catalog: every category has
+ * {@link #FAN_OUT} children, filled breadth first, so 10,000 categories are four levels deep.
+ *
+ * The same sizes give the same data on every run, so results can be compared between releases.
+ *
+ * @author Ken Finnigan
+ */
+public final class Fixtures {
+
+    public static final int FAN_OUT = 10;
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2002, 1, 1, 0, 0);
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return a mapper configured like the admin service's for {@code format}, json, cbor or smile.
+     */
+    public static ObjectMapper mapper(String format) {
+        JsonFactory factory;
+        switch (format) {
+            case "cbor":
+                factory = new CBORFactory();
+                break;
+            case "smile":
+                factory = new SmileFactory();
+                break;
+            default:
+                factory = new JsonFactory();
+        }
+        return new ObjectMapper(factory).registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * @return {@code size} categories, parents before their children, as {@code GET /category} lists them.
+     */
+    public static List<Category> categories(int size) {
+        List<Category> categories = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Category category = new Category();
+            category.id = 1000 + i;
+            category.name = "Category " + i;
+            category.header = "header";
+            category.visible = i % 7 != 0;
+            category.imagePath = "images/" + i + ".png";
+            category.parent = i == 0 ? null : categories.get(parentIndex(i));
+            category.created = CREATED.plusMinutes(i);
+            category.updated = i % 3 == 0 ? CREATED.plusDays(1) : null;
+            category.version = 1 + i % 5;
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    /**
+     * @return the root of {@code size} nodes, as {@code GET /category/tree} serves it.
+     */
+    public static CategoryNode tree(int size) {
+        List<CategoryNode> nodes = new ArrayList<>(size);
+        for (Category category : categories(size)) {
+            CategoryNode node = new CategoryNode(category.id,
+                                                 category.name,
+                                                 category.visible,
+                                                 category.imagePath,
+                                                 Category.idOf(category.parent),
+                                                 category.created,
+                                                 category.updated,
+                                                 category.version);
+            if (!nodes.isEmpty()) {
+                nodes.get(parentIndex(nodes.size())).addChild(node);
+            }
+            nodes.add(node);
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * @return {@link #tree(int)} as a snapshot, added in id order as {@code CategoryTreeLoader} does.
+     */
+    public static CategorySnapshot snapshot(int size) {
+        CategorySnapshot.Builder builder = CategorySnapshot.builder();
+        for (Category category : categories(size)) {
+            builder.add(category.id,
+                        Category.idOf(category.parent),
+                        category.name,
+                        category.visible,
+                        category.imagePath,
+                        category.created,
+                        category.updated,
+                        category.version);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the entity form of {@link #tree(int)}. Parents are left out, CategoryTree can only read
+     * them back from a persistence context.
+     */
+    public static CategoryTree entityTree(int size) throws IOException {
+        ObjectMapper mapper = mapper("json");
+        return mapper.readValue(mapper.writeValueAsBytes(withoutParents(tree(size))), CategoryTree.class);
+    }
+
+    private static CategoryNode withoutParents(CategoryNode node) {
+        CategoryNode copy = new CategoryNode(node.getId(),
+                                             node.getName(),
+                                             node.getVisible(),
+                                             node.getImagePath(),
+                                             null,
+                                             node.getCreated(),
+                                             node.getUpdated(),
+                                             node.getVersion());
+        for (CategoryNode child : node.getChildren()) {
+            copy.addChild(withoutParents(child));
+        }
+        return copy;
+    }
+
+    private static int parentIndex(int index) {
+        return (index - 1) / FAN_OUT;
+    }
+}
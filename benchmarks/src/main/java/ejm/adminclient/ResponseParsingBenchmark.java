@@ -0,0 +1,83 @@
+package ejm.adminclient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ejm.admin.model.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * How {@link AdminClient} turns response bodies into categories, with the readers of its {@link Codec},
+ * from bodies written by the admin service's own mapping.
+ *
+ * {@link #readArray} is {@code getCategories}, reading the whole array with parents resolved;
+ * {@link #readStreamed} is {@link CategoryIterator}, one category at a time off the parser.
+ *
+ * @author Ken Finnigan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResponseParsingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private Codec codec;
+
+    private byte[] categories;
+
+    private byte[] category;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = Codec.forMediaType("json".equals(format) ? "application/json"
+                                   : "cbor".equals(format) ? AdminClientConfig.APPLICATION_CBOR
+                                   : AdminClientConfig.APPLICATION_SMILE);
+        ObjectMapper mapper = Fixtures.mapper(format);
+        List<ejm.admin.model.Category> fixtures = Fixtures.categories(size);
+        categories = mapper.writeValueAsBytes(fixtures);
+        category = mapper.writeValueAsBytes(fixtures.get(size - 1));
+    }
+
+    @Benchmark
+    public Category readOne() throws IOException {
+        return codec.categoryReader.readValue(category);
+    }
+
+    @Benchmark
+    public Category[] readArray() throws IOException {
+        return codec.categoriesReader.readValue(categories);
+    }
+
+    @Benchmark
+    public void readStreamed(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = codec.categoryReader.getFactory().createParser(categories)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                blackhole.consume(codec.categoryReader.<Category>readValue(parser));
+            }
+        }
+    }
+}
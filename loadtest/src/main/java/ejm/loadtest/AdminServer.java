@@ -0,0 +1,93 @@
+package ejm.loadtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admin service's Thorntail jar, run in its own JVM on the in-memory H2 database it's configured with.
+ *
+ * @author Ken Finnigan
+ */
+class AdminServer implements Closeable {
+
+    static final long START_TIMEOUT = TimeUnit.MINUTES.toMillis(3);
+
+    private final Process process;
+
+    private final String url;
+
+    private AdminServer(Process process, String url) {
+        this.process = process;
+        this.url = url;
+    }
+
+    /**
+     * Starts the service and waits until it answers.
+     */
+    static AdminServer start(Path jar, int port, Path output) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IOException(jar + " doesn't exist, build it with mvn -pl admin package first");
+        }
+        Files.createDirectories(output);
+        Path log = output.resolve("server.log");
+
+        Process process = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dswarm.port.offset=0",
+                "-Dswarm.http.port=" + port,
+                "-jar", jar.toAbsolutePath().toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        AdminServer server = new AdminServer(process, "http://localhost:" + port);
+
+        long deadline = System.currentTimeMillis() + START_TIMEOUT;
+        while (!server.isUp()) {
+            if (!process.isAlive()) {
+                throw new IOException("The admin service exited with " + process.exitValue() + ", see " + log);
+            }
+            if (System.currentTimeMillis() > deadline) {
+                server.close();
+                throw new IOException("The admin service didn't start within " + START_TIMEOUT + "ms, see " + log);
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+        return server;
+    }
+
+    String url() {
+        return url;
+    }
+
+    private boolean isUp() {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url + "/admin/metrics").openConnection();
+            connection.setConnectTimeout(500);
+            connection.setReadTimeout(2000);
+            int status = connection.getResponseCode();
+            connection.disconnect();
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ejm.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ids of the seeded categories, and which of them the workload may change.
+ *
+ * Categories are numbered breadth first from {@link #FIRST_ID}, so the last ones are leaves. The last
+ * half of the leaves are kept for deletes, each deleted once, and left out of reads and updates.
+ *
+ * @author Ken Finnigan
+ */
+class Catalog {
+
+    /**
+     * Far above the ids the service's sequence hands out, so categories created during the run
+     * can't collide with seeded ones.
+     */
+    static final int FIRST_ID = 10_000_000;
+
+    private final int size;
+
+    private final int fanOut;
+
+    private final int stable;
+
+    private final AtomicInteger nextDeletable;
+
+    Catalog(int size, int fanOut) {
+        this.size = size;
+        this.fanOut = fanOut;
+        int leaves = size - (size - 1 + fanOut - 1) / fanOut;
+        this.stable = size - leaves / 2;
+        this.nextDeletable = new AtomicInteger(stable);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int id(int index) {
+        return FIRST_ID + index;
+    }
+
+    /**
+     * @return the id of the parent of the category at {@code index}, or 0, the seeded Top, for the first.
+     */
+    int parentId(int index) {
+        return index == 0 ? 0 : id((index - 1) / fanOut);
+    }
+
+    /**
+     * @return a random seeded id that no delete will remove.
+     */
+    int randomId() {
+        return id(ThreadLocalRandom.current().nextInt(stable));
+    }
+
+    /**
+     * @return the next id to delete, or -1 once all have been.
+     */
+    int nextDeletable() {
+        int index = nextDeletable.getAndIncrement();
+        return index < size ? id(index) : -1;
+    }
+}
@@ -0,0 +1,62 @@
+package ejm.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed number of workers, each sending its next request as soon as the last one returns.
+ *
+ * A closed loop slows down with the server: a worker stuck behind one slow request sends none of the
+ * requests it otherwise would have, so their latencies are never seen. Taking the mean service time of
+ * the warm up as the rate each worker is expected to keep, every recorded latency longer than that is
+ * backfilled with the requests the stall held back, see HdrHistogram's
+ * {@code recordValueWithExpectedInterval}.
+ *
+ * @author Ken Finnigan
+ */
+class ClosedLoopDriver implements Driver {
+
+    private final int concurrency;
+
+    private final long warmupNanos;
+
+    private final long durationNanos;
+
+    private volatile long expectedIntervalNanos;
+
+    private volatile boolean running = true;
+
+    ClosedLoopDriver(int concurrency, int warmupSeconds, int durationSeconds) {
+        this.concurrency = concurrency;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    @Override
+    public void run(Workload workload, Results results) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                while (running) {
+                    long now = System.nanoTime();
+                    workload.run(workload.next(), now, expectedIntervalNanos, results);
+                }
+            }, "loadtest-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        expectedIntervalNanos = results.warmupMeanNanos();
+        results.start();
+        TimeUnit.NANOSECONDS.sleep(durationNanos);
+        results.stop();
+
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+}
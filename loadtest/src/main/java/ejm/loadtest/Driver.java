@@ -0,0 +1,11 @@
+package ejm.loadtest;
+
+/**
+ * Applies a {@link Workload} for the warm up and then the measured duration.
+ *
+ * @author Ken Finnigan
+ */
+interface Driver {
+
+    void run(Workload workload, Results results) throws InterruptedException;
+}
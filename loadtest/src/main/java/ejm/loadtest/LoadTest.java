@@ -0,0 +1,65 @@
+package ejm.loadtest;
+
+import java.io.PrintStream;
+
+import ejm.adminclient.AdminClient;
+import ejm.adminclient.AdminClientConfig;
+
+/**
+ * Measures the admin service end to end: starts it, unless {@code loadtest.url} names a running one,
+ * seeds a catalog, applies a mixed workload through {@link AdminClient} and reports throughput, error
+ * rates and latency percentiles for each operation.
+ *
+ * Latencies are taken from when each request was meant to be sent rather than when it was, so a
+ * stalled server shows up in the percentiles instead of just slowing the test down. See
+ * {@link OpenLoopDriver} and {@link ClosedLoopDriver} for how each mode does that.
+ *
+ * @author Ken Finnigan
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        run(new LoadTestConfig(), System.out);
+    }
+
+    public static void run(LoadTestConfig config, PrintStream out) throws Exception {
+        AdminServer server = null;
+        String url = config.getUrl();
+        if (url == null) {
+            out.println("Starting " + config.getServerJar() + " on port " + config.getPort());
+            server = AdminServer.start(config.getServerJar(), config.getPort(), config.getOutput());
+            url = server.url();
+        }
+
+        try {
+            Catalog catalog = new Catalog(config.getCategories(), config.getFanOut());
+            out.println("Seeding " + catalog.size() + " categories: " + new Seeder(url).seed(catalog));
+
+            AdminClientConfig clientConfig = new AdminClientConfig();
+            clientConfig.setMaxConnections(Math.max(clientConfig.getMaxConnections(), config.getConcurrency() * 2));
+            clientConfig.setMaxConnectionsPerRoute(Math.max(clientConfig.getMaxConnectionsPerRoute(), config.getConcurrency() * 2));
+
+            try (AdminClient client = new AdminClient(url, clientConfig)) {
+                Workload workload = new Workload(url, client, catalog, config.getMix());
+                Driver driver = config.getMode() == LoadTestConfig.Mode.OPEN
+                        ? new OpenLoopDriver(config.getRate(), config.getConcurrency(), config.getWarmup(), config.getDuration())
+                        : new ClosedLoopDriver(config.getConcurrency(), config.getWarmup(), config.getDuration());
+
+                out.printf("Running %s loop, %s, mix %s: %ds warm up, %ds measured%n",
+                           config.getMode().name().toLowerCase(),
+                           config.getMode() == LoadTestConfig.Mode.OPEN
+                                   ? config.getRate() + " req/s over up to " + config.getConcurrency() + " connections"
+                                   : config.getConcurrency() + " workers",
+                           config.getMix(), config.getWarmup(), config.getDuration());
+
+                Results results = new Results();
+                driver.run(workload, results);
+                results.report(out, config.getOutput());
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
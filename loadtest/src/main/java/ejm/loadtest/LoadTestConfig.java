@@ -0,0 +1,194 @@
+package ejm.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for a {@link LoadTest} run, read from {@code loadtest.*} system properties.
+ *
+ * @author Ken Finnigan
+ */
+public class LoadTestConfig {
+
+    public enum Mode {
+        /**
+         * A fixed number of workers, each sending its next request as soon as the last one returns.
+         */
+        CLOSED,
+        /**
+         * Requests sent on a fixed schedule, whether or not earlier ones have returned.
+         */
+        OPEN
+    }
+
+    private String url = System.getProperty("loadtest.url");
+
+    private Path serverJar = Paths.get(System.getProperty("loadtest.server.jar", "admin/target/chapter4-thorntail.jar"));
+
+    private int port = Integer.getInteger("loadtest.port", 8090);
+
+    private Path output = Paths.get(System.getProperty("loadtest.output", "target/loadtest"));
+
+    private int categories = Integer.getInteger("loadtest.categories", 10000);
+
+    private int fanOut = Integer.getInteger("loadtest.fanOut", 10);
+
+    private Mode mode = Mode.valueOf(System.getProperty("loadtest.mode", "closed").toUpperCase());
+
+    private int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+
+    private int rate = Integer.getInteger("loadtest.rate", 500);
+
+    private int warmup = Integer.getInteger("loadtest.warmup", 10);
+
+    private int duration = Integer.getInteger("loadtest.duration", 60);
+
+    private Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "get=70,all=5,tree=5,create=10,update=7,delete=3"));
+
+    /**
+     * @return the admin service to test, or {@code null} to start one from {@link #getServerJar()}.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Path getServerJar() {
+        return serverJar;
+    }
+
+    public void setServerJar(Path serverJar) {
+        this.serverJar = serverJar;
+    }
+
+    /**
+     * @return the HTTP port of a service started by the load test.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * @return where the server log and latency distributions are written.
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    public void setOutput(Path output) {
+        this.output = output;
+    }
+
+    /**
+     * @return how many categories to seed before the run.
+     */
+    public int getCategories() {
+        return categories;
+    }
+
+    public void setCategories(int categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * @return children per seeded category.
+     */
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(int fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return workers in {@link Mode#CLOSED}; in {@link Mode#OPEN}, the most requests that may be in
+     * flight, beyond which scheduled requests wait and their wait counts towards their latency.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @return requests per second in {@link Mode#OPEN}.
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * @return seconds of load before measuring starts.
+     */
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(int warmup) {
+        this.warmup = warmup;
+    }
+
+    /**
+     * @return seconds of measured load.
+     */
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * @return the relative weight of each operation, such as {@code get=70,create=10}.
+     */
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public void setMix(Map<Operation, Integer> mix) {
+        this.mix = mix;
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but found " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a weight above 0");
+        }
+        return weights;
+    }
+}
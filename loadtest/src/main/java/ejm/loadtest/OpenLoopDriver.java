@@ -0,0 +1,76 @@
+package ejm.loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule, {@code rate} a second, however the server is coping.
+ *
+ * Each request's latency is measured from the time it was scheduled for. When every worker is busy,
+ * requests queue, and the time spent queued counts, as it would for a user arriving at that moment.
+ * This is what keeps an open loop free of coordinated omission.
+ *
+ * @author Ken Finnigan
+ */
+class OpenLoopDriver implements Driver {
+
+    private final int rate;
+
+    private final int concurrency;
+
+    private final long warmupNanos;
+
+    private final long durationNanos;
+
+    OpenLoopDriver(int rate, int concurrency, int warmupSeconds, int durationSeconds) {
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    @Override
+    public void run(Workload workload, Results results) throws InterruptedException {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                                                         new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "loadtest-worker-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        boolean measuring = false;
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            if (!measuring && intended >= measureFrom) {
+                results.start();
+                measuring = true;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = workload.next();
+            workers.execute(() -> workload.run(operation, intended, 0, results));
+        }
+
+        // Requests still queued were due within the run, so they're waited for and count.
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+        results.stop();
+    }
+}
@@ -0,0 +1,33 @@
+package ejm.loadtest;
+
+/**
+ * The requests a workload is made of.
+ *
+ * @author Ken Finnigan
+ */
+public enum Operation {
+    /**
+     * {@code GET /category/{id}} of a seeded category.
+     */
+    GET,
+    /**
+     * {@code GET /category}, the first page.
+     */
+    ALL,
+    /**
+     * {@code GET /category/tree}, the whole hierarchy.
+     */
+    TREE,
+    /**
+     * {@code POST /category}, a new child of a seeded category.
+     */
+    CREATE,
+    /**
+     * {@code GET} then {@code PUT /category/{id}}, changing the header of a seeded category.
+     */
+    UPDATE,
+    /**
+     * {@code DELETE /category/{id}} of a seeded leaf set aside for deleting.
+     */
+    DELETE
+}
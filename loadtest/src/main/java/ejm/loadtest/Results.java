@@ -0,0 +1,158 @@
+package ejm.loadtest;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and outcomes of each {@link Operation}, recorded from any number of threads.
+ *
+ * Every latency is measured from when the request should have been sent, not when it was, see
+ * {@link LoadTest}. Closed loop runs also keep the plain service times, to show how much the
+ * correction adds.
+ *
+ * @author Ken Finnigan
+ */
+class Results {
+
+    private static final long HIGHEST = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    private final LongAdder warmupNanos = new LongAdder();
+
+    private final LongAdder warmupRequests = new LongAdder();
+
+    private volatile boolean recording;
+
+    private long startNanos;
+
+    private long endNanos;
+
+    Results() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void start() {
+        for (Stats s : stats.values()) {
+            s.reset();
+        }
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * @param intendedNanos when the request was due to be sent
+     * @param sentNanos when it was sent
+     * @param expectedIntervalNanos for closed loops, the time each worker was expected to take per
+     *                              request, used to fill in the requests a stall kept from being sent;
+     *                              0 when the latency is already measured from the intended time
+     */
+    void record(Operation operation, long intendedNanos, long sentNanos, long expectedIntervalNanos, boolean success) {
+        long now = System.nanoTime();
+        if (!recording) {
+            warmupNanos.add(now - sentNanos);
+            warmupRequests.increment();
+            return;
+        }
+        Stats s = stats.get(operation);
+        long latency = Math.min(now - intendedNanos, HIGHEST);
+        if (expectedIntervalNanos > 0) {
+            s.corrected.recordValueWithExpectedInterval(latency, expectedIntervalNanos);
+        } else {
+            s.corrected.recordValue(latency);
+        }
+        s.service.recordValue(Math.min(now - sentNanos, HIGHEST));
+        (success ? s.successes : s.errors).increment();
+    }
+
+    /**
+     * @return the mean service time seen during warm up, 0 if nothing completed.
+     */
+    long warmupMeanNanos() {
+        long requests = warmupRequests.sum();
+        return requests == 0 ? 0 : warmupNanos.sum() / requests;
+    }
+
+    void skipped(Operation operation) {
+        if (recording) {
+            stats.get(operation).skipped.increment();
+        }
+    }
+
+    void report(PrintStream out, Path output) throws IOException {
+        double seconds = (endNanos - startNanos) / 1e9;
+        long total = 0;
+        long errors = 0;
+
+        out.printf("%n%-7s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                   "op", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+        Files.createDirectories(output);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long count = s.successes.sum() + s.errors.sum();
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            errors += s.errors.sum();
+            Histogram h = s.corrected;
+            out.printf("%-7s %9d %9.1f %6.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                       entry.getKey().name().toLowerCase(), count, count / seconds, 100.0 * s.errors.sum() / count,
+                       millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                       millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                       millis(h.getMaxValue()), millis(s.service.getValueAtPercentile(99)));
+            if (s.skipped.sum() > 0) {
+                out.printf("        %d skipped, nothing left to delete%n", s.skipped.sum());
+            }
+
+            Path file = output.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream hgrm = new PrintStream(new FileOutputStream(file.toFile()))) {
+                h.outputPercentileDistribution(hgrm, 1e6);
+            }
+        }
+        out.printf("%ntotal   %9d %9.1f %6.2f%%  over %.1fs; distributions in %s, in ms%n",
+                   total, total / seconds, total == 0 ? 0 : 100.0 * errors / total, seconds, output);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static final class Stats {
+
+        final Histogram corrected = new ConcurrentHistogram(HIGHEST, 3);
+
+        final Histogram service = new ConcurrentHistogram(HIGHEST, 3);
+
+        final LongAdder successes = new LongAdder();
+
+        final LongAdder errors = new LongAdder();
+
+        final LongAdder skipped = new LongAdder();
+
+        void reset() {
+            corrected.reset();
+            service.reset();
+            successes.reset();
+            errors.reset();
+            skipped.reset();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ejm.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+/**
+ * Fills the admin service with the categories of a {@link Catalog} through {@code POST /category/import},
+ * streamed as NDJSON so a large catalog is never held in memory on either side.
+ *
+ * @author Ken Finnigan
+ */
+class Seeder {
+
+    private final String url;
+
+    Seeder(String url) {
+        this.url = url;
+    }
+
+    /**
+     * @return the import report the service sent back.
+     */
+    String seed(Catalog catalog) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + "/admin/category/import").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(64 * 1024);
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.setRequestProperty("Accept", "application/json");
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < catalog.size(); i++) {
+                out.write("{\"id\":");
+                out.write(Integer.toString(catalog.id(i)));
+                out.write(",\"name\":\"Load ");
+                out.write(Integer.toString(i));
+                out.write("\",\"header\":\"header\",\"visible\":");
+                out.write(i % 10 == 0 ? "false" : "true");
+                out.write(",\"imagePath\":\"n/a\",\"parent\":");
+                out.write(Integer.toString(catalog.parentId(i)));
+                out.write("}\n");
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream body = status < 300 ? connection.getInputStream() : connection.getErrorStream();
+        String report = read(body);
+        if (status >= 300) {
+            throw new IOException("Seeding failed with " + status + ": " + report);
+        }
+        return report;
+    }
+
+    private static String read(InputStream body) throws IOException {
+        if (body == null) {
+            return "";
+        }
+        try (Scanner scanner = new Scanner(body, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+        }
+    }
+}
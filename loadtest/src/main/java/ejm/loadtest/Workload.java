@@ -0,0 +1,143 @@
+package ejm.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import ejm.adminclient.AdminClient;
+import ejm.adminclient.Category;
+
+/**
+ * Picks operations at random in the proportions of the configured mix and runs them through
+ * {@link AdminClient}.
+ *
+ * AdminClient has no call for the tree, so {@link Operation#TREE} reads it with a plain request and
+ * discards the body.
+ *
+ * @author Ken Finnigan
+ */
+class Workload {
+
+    private final String url;
+
+    private final AdminClient client;
+
+    private final Catalog catalog;
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeWeights;
+
+    Workload(String url, AdminClient client, Catalog catalog, Map<Operation, Integer> mix) {
+        this.url = url;
+        this.client = client;
+        this.catalog = catalog;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Runs {@code operation} and records it.
+     *
+     * @param intendedNanos when it was due to start
+     */
+    void run(Operation operation, long intendedNanos, long expectedIntervalNanos, Results results) {
+        int deleteId = 0;
+        if (operation == Operation.DELETE && (deleteId = catalog.nextDeletable()) < 0) {
+            results.skipped(operation);
+            return;
+        }
+
+        long sent = System.nanoTime();
+        boolean success;
+        try {
+            success = execute(operation, deleteId);
+        } catch (IOException | RuntimeException e) {
+            success = false;
+        }
+        results.record(operation, intendedNanos, sent, expectedIntervalNanos, success);
+    }
+
+    private boolean execute(Operation operation, int deleteId) throws IOException {
+        switch (operation) {
+            case GET:
+                return client.getCategory(catalog.randomId()) != null;
+            case ALL:
+                return client.allCategories().length > 0;
+            case TREE:
+                return readTree();
+            case CREATE:
+                Category category = new Category();
+                category.setName("Created " + ThreadLocalRandom.current().nextInt(1_000_000));
+                category.setHeader("header");
+                category.setVisible(Boolean.TRUE);
+                category.setImagePath("n/a");
+                category.setParent(new CategoryReference(catalog.randomId()));
+                client.addCategory(category);
+                return true;
+            case UPDATE:
+                int id = catalog.randomId();
+                Category current = client.getCategory(id);
+                if (current == null) {
+                    return false;
+                }
+                current.setHeader("header " + ThreadLocalRandom.current().nextInt(1_000_000));
+                client.updateCategory(id, current);
+                return true;
+            case DELETE:
+                client.deleteCategory(deleteId);
+                return true;
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private boolean readTree() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + "/admin/category/tree").openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        int status = connection.getResponseCode();
+        if (status >= 300) {
+            InputStream error = connection.getErrorStream();
+            if (error != null) {
+                error.close();
+            }
+            return false;
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream body = connection.getInputStream()) {
+            while (body.read(buffer) >= 0) {
+                // Read to the end so the connection is kept alive for the next request.
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A parent given by id alone, which is all the service reads of it.
+     */
+    private static final class CategoryReference extends Category {
+
+        CategoryReference(int id) {
+            this.id = id;
+        }
+    }
+}